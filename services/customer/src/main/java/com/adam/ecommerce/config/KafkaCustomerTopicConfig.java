@@ -0,0 +1,22 @@
+package com.adam.ecommerce.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaCustomerTopicConfig {
+
+    public static final String CUSTOMER_TOPIC = "customer-topic";
+
+    // keyed by customer id, only the latest change of a customer matters
+    @Bean
+    public NewTopic customerTopic() {
+        return TopicBuilder
+                .name(CUSTOMER_TOPIC)
+                .compact()
+                .build();
+    }
+
+}
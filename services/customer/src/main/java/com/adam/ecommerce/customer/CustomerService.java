@@ -1,6 +1,9 @@
 package com.adam.ecommerce.customer;
 
 import com.adam.ecommerce.exception.CustomerNotFoundException;
+import com.adam.ecommerce.kafka.CustomerEvent;
+import com.adam.ecommerce.kafka.CustomerEventType;
+import com.adam.ecommerce.kafka.CustomerProducer;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang.StringUtils;
@@ -18,8 +21,11 @@ public class CustomerService {
 
     private final CustomerRepository repository ;
     private final CustomerMapper mapper;
+    private final CustomerProducer producer;
     public String createCustomer(@Valid CustomerRequest request) {
         var customer = repository.save(mapper.toCustomer(request));
+        // clears a "not found" another service may have cached for this id
+        producer.send(new CustomerEvent(customer.getId(), CustomerEventType.CREATED));
         return customer.getId();
     }
 
@@ -30,6 +36,7 @@ public class CustomerService {
                 ));
         mergerCustomer(customer, request);
         repository.save(customer);
+        producer.send(new CustomerEvent(customer.getId(), CustomerEventType.UPDATED));
     }
 
     private void mergerCustomer(Customer customer, @Valid CustomerRequest request) {
@@ -61,6 +68,6 @@ public class CustomerService {
 
     public void deleteCustomer(String customerId) {
         repository.deleteById(customerId);
-
+        producer.send(new CustomerEvent(customerId, CustomerEventType.DELETED));
     }
 }
@@ -0,0 +1,7 @@
+package com.adam.ecommerce.kafka;
+
+public record CustomerEvent(
+        String customerId,
+        CustomerEventType type
+) {
+}
@@ -0,0 +1,7 @@
+package com.adam.ecommerce.kafka;
+
+public enum CustomerEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,41 @@
+package com.adam.ecommerce.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+
+import static com.adam.ecommerce.config.KafkaCustomerTopicConfig.CUSTOMER_TOPIC;
+import static org.springframework.kafka.support.KafkaHeaders.KEY;
+import static org.springframework.kafka.support.KafkaHeaders.TOPIC;
+
+/**
+ * Tells the services caching customers that one changed. Sending is best effort: a lost event only
+ * leaves a copy stale until it expires on its own.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerProducer {
+
+    private final KafkaTemplate<String, CustomerEvent> kafkaTemplate;
+
+    public void send(CustomerEvent event) {
+        log.debug("Sending customer event {}", event);
+
+        Message<CustomerEvent> message = MessageBuilder
+                .withPayload(event)
+                .setHeader(TOPIC, CUSTOMER_TOPIC)
+                .setHeader(KEY, event.customerId())
+                .build();
+
+        kafkaTemplate.send(message).whenComplete((result, e) -> {
+            if (e != null) {
+                log.warn("Could not send customer event {}", event, e);
+            }
+        });
+    }
+
+}
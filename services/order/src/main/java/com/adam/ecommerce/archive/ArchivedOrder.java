@@ -0,0 +1,56 @@
+package com.adam.ecommerce.archive;
+
+import com.adam.ecommerce.order.Order;
+import com.adam.ecommerce.order.OrderStatus;
+import com.adam.ecommerce.order.PaymentMethod;
+import com.adam.ecommerce.orderline.OrderLine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * One line of an archive file. {@code id} must stay the first component: readers find an order by the line prefix.
+ */
+public record ArchivedOrder(
+        Integer id,
+        String reference,
+        BigDecimal totalAmount,
+        PaymentMethod paymentMethod,
+        String customerId,
+        OrderStatus status,
+        String statusMessage,
+        LocalDateTime createdDate,
+        LocalDateTime lastModifiedDate,
+        List<ArchivedOrderLine> lines
+) {
+
+    /**
+     * A detached copy of the order as it was stored; it is never persisted again.
+     */
+    Order toOrder() {
+        var order = Order.builder()
+                .id(id)
+                .reference(reference)
+                .totalAmount(totalAmount)
+                .paymentMethod(paymentMethod)
+                .customerId(customerId)
+                .status(status)
+                .statusMessage(statusMessage)
+                .createdDate(createdDate)
+                .lastModifiedDate(lastModifiedDate)
+                .build();
+        order.setOrderLines(lines
+                .stream()
+                .map(line -> OrderLine.builder()
+                        .id(line.id())
+                        .order(order)
+                        .productId(line.productId())
+                        .quantity(line.quantity())
+                        .createdDate(createdDate)
+                        .build())
+                .collect(Collectors.toList()));
+        return order;
+    }
+}
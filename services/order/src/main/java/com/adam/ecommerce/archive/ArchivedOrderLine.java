@@ -0,0 +1,8 @@
+package com.adam.ecommerce.archive;
+
+public record ArchivedOrderLine(
+        Integer id,
+        Integer productId,
+        double quantity
+) {
+}
@@ -0,0 +1,27 @@
+package com.adam.ecommerce.archive;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@Table(name = "order_archive")
+public class OrderArchiveEntry {
+
+    @Id
+    private String partitionName;
+    @Column(nullable = false, length = 1024)
+    private String file;
+    private Integer minOrderId;
+    private Integer maxOrderId;
+    @Column(nullable = false)
+    private int orderCount;
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,65 @@
+package com.adam.ecommerce.archive;
+
+import com.adam.ecommerce.order.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The slow path for orders whose month was archived: scans the archive files whose id range covers the order.
+ * Files are sorted by id, so a scan stops as soon as it passes the order.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiveReader {
+
+    private static final String ID_PREFIX = "{\"id\":";
+
+    private final OrderArchiveRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public Optional<Order> findById(Integer orderId) {
+        for (var entry : repository.findCovering(orderId)) {
+            var order = scan(Path.of(entry.getFile()), orderId);
+            if (order.isPresent()) {
+                return order.map(ArchivedOrder::toOrder);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<ArchivedOrder> scan(Path file, Integer orderId) {
+        if (!Files.exists(file)) {
+            log.warn("Archive file {} is missing on this instance", file);
+            return Optional.empty();
+        }
+        try (var reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // only parse the line of the order we look for
+                var id = Integer.parseInt(line, ID_PREFIX.length(), line.indexOf(','), 10);
+                if (id == orderId) {
+                    return Optional.of(objectMapper.readValue(line, ArchivedOrder.class));
+                }
+                if (id > orderId) {
+                    break;
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read archive file " + file, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.adam.ecommerce.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OrderArchiveRepository extends JpaRepository<OrderArchiveEntry, String> {
+
+    /**
+     * Order ids come from a sequence, so a month's ids mostly follow the previous month's;
+     * only the months around the order's own overlap its range.
+     */
+    @Query("""
+            select e
+            from OrderArchiveEntry e
+            where e.minOrderId <= :orderId and e.maxOrderId >= :orderId
+            order by e.partitionName desc
+            """)
+    List<OrderArchiveEntry> findCovering(@Param("orderId") Integer orderId);
+}
@@ -0,0 +1,176 @@
+package com.adam.ecommerce.archive;
+
+import com.adam.ecommerce.order.OrderStatus;
+import com.adam.ecommerce.order.PaymentMethod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes one month of orders with their lines to a gzipped NDJSON file, ordered by id, then drops the month's
+ * partitions. Must run inside a transaction: the rows are read through a cursor and the partitions are only
+ * dropped if the file was completely written. Every instance reads archived orders from these files, so the
+ * directory must be shared by all of them; archiving refuses to start without one.
+ */
+@Component
+@Slf4j
+public class OrderArchiver {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderArchiveRepository repository;
+    private final ObjectWriter writer;
+    private final Path directory;
+
+    public OrderArchiver(
+            DataSource dataSource,
+            OrderArchiveRepository repository,
+            ObjectMapper objectMapper,
+            @Value("${application.archive.enabled:false}") boolean enabled,
+            @Value("${application.archive.directory:}") String directory
+    ) {
+        if (enabled && directory.isBlank()) {
+            throw new IllegalStateException(
+                    "application.archive.enabled requires application.archive.directory, shared by all instances");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.repository = repository;
+        this.writer = objectMapper.writer();
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+    }
+
+    /**
+     * Refuses a month that still has orders in the pipeline: dropping them would lose a payment or a stock hold.
+     */
+    void archive(YearMonth month) {
+        var suffix = OrderPartitions.suffix(month);
+        if (directory == null) {
+            throw new IllegalStateException("No application.archive.directory to archive orders of " + month + " to");
+        }
+        var unfinished = jdbcTemplate.queryForObject(
+                "select count(*) from customer_order_" + suffix + " where status in ('PENDING', 'RESERVED', 'PAID')",
+                Integer.class);
+        if (unfinished != null && unfinished > 0) {
+            throw new IllegalStateException(
+                    "Orders of " + month + " are not archived, " + unfinished + " of them are not finished yet");
+        }
+        var file = directory.resolve("customer_order_" + suffix + ".ndjson.gz");
+        var written = new ArchiveFile();
+        try {
+            Files.createDirectories(directory);
+            var partial = Files.createTempFile(directory, "customer_order_" + suffix, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                written.out = out;
+                jdbcTemplate.query("""
+                        select o.id, o.reference, o.total_amount, o.payment_method, o.customer_id, o.status,
+                               o.status_message, o.created_date, o.last_modified_date,
+                               l.id as line_id, l.product_id, l.quantity
+                        from customer_order_%1$s o
+                                 left join order_line_%1$s l on l.order_id = o.id
+                        order by o.id, l.id
+                        """.formatted(suffix), (RowCallbackHandler) written::add);
+                written.flush();
+            } catch (RuntimeException | IOException e) {
+                Files.deleteIfExists(partial);
+                throw e;
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive orders of " + month, e);
+        }
+
+        repository.save(OrderArchiveEntry.builder()
+                .partitionName("customer_order_" + suffix)
+                .file(file.toAbsolutePath().toString())
+                .minOrderId(written.minId)
+                .maxOrderId(written.maxId)
+                .orderCount(written.count)
+                .archivedAt(LocalDateTime.now())
+                .build());
+        // lines first, they reference the orders
+        jdbcTemplate.execute("drop table order_line_" + suffix);
+        jdbcTemplate.execute("alter table customer_order detach partition customer_order_" + suffix);
+        jdbcTemplate.execute("drop table customer_order_" + suffix);
+        log.info("Archived {} orders of {} to {}", written.count, month, file);
+    }
+
+    /**
+     * Folds the joined rows, one per line, back into one archived order per id.
+     */
+    private class ArchiveFile {
+
+        private OutputStream out;
+        private ArchivedOrder current;
+        private Integer minId;
+        private Integer maxId;
+        private int count;
+
+        void add(ResultSet row) throws SQLException {
+            var id = row.getInt("id");
+            if (current == null || !current.id().equals(id)) {
+                flush();
+                current = new ArchivedOrder(
+                        id,
+                        row.getString("reference"),
+                        row.getBigDecimal("total_amount"),
+                        enumValue(PaymentMethod.class, row.getString("payment_method")),
+                        row.getString("customer_id"),
+                        enumValue(OrderStatus.class, row.getString("status")),
+                        row.getString("status_message"),
+                        row.getObject("created_date", LocalDateTime.class),
+                        row.getObject("last_modified_date", LocalDateTime.class),
+                        new ArrayList<>()
+                );
+            }
+            var lineId = row.getObject("line_id", Integer.class);
+            if (lineId != null) {
+                current.lines().add(new ArchivedOrderLine(
+                        lineId,
+                        row.getObject("product_id", Integer.class),
+                        row.getDouble("quantity")
+                ));
+            }
+        }
+
+        void flush() {
+            if (current == null) {
+                return;
+            }
+            try {
+                out.write(writer.writeValueAsBytes(current));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            minId = minId == null ? current.id() : Math.min(minId, current.id());
+            maxId = maxId == null ? current.id() : Math.max(maxId, current.id());
+            count++;
+            current = null;
+        }
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+}
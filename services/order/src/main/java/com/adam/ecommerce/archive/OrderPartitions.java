@@ -0,0 +1,153 @@
+package com.adam.ecommerce.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code customer_order} and {@code order_line} ahead of the calendar and hands
+ * the months past retention to the {@link OrderArchiver}. Every instance schedules this, one runs it at a time.
+ */
+@Component
+@Slf4j
+public class OrderPartitions {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+    private static final Pattern PARTITION = Pattern.compile("customer_order_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderArchiver archiver;
+    private final int monthsAhead;
+    private final boolean archiveEnabled;
+    private final int retentionMonths;
+
+    public OrderPartitions(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            OrderArchiver archiver,
+            @Value("${application.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${application.archive.enabled:false}") boolean archiveEnabled,
+            @Value("${application.archive.retention-months:12}") int retentionMonths
+    ) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiver = archiver;
+        this.monthsAhead = monthsAhead;
+        this.archiveEnabled = archiveEnabled;
+        this.retentionMonths = retentionMonths;
+    }
+
+    static String suffix(YearMonth month) {
+        return SUFFIX.format(month.atDay(1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${application.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        try {
+            createAhead();
+            if (archiveEnabled) {
+                archiveExpired();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not maintain order partitions, trying again on the next run", e);
+        }
+    }
+
+    private void createAhead() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!tryLock()) {
+                return;
+            }
+            var month = YearMonth.now();
+            for (int i = 0; i <= monthsAhead; i++) {
+                if (!exists(month.plusMonths(i))) {
+                    create(month.plusMonths(i));
+                }
+            }
+        });
+    }
+
+    /**
+     * A month cannot be attached while the default partitions hold rows of it, e.g. written while the maintainer
+     * was down. Those rows are moved out, the partitions created and the rows put back in the same transaction,
+     * with writes to the default partitions blocked meanwhile.
+     */
+    private void create(YearMonth month) {
+        var suffix = suffix(month);
+        var from = month.atDay(1).atStartOfDay();
+        var to = month.plusMonths(1).atDay(1).atStartOfDay();
+        var stranded = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists (select 1 from customer_order_default where created_date >= ? and created_date < ?)",
+                Boolean.class, from, to));
+        if (!stranded) {
+            jdbcTemplate.queryForList("select create_order_partitions(?)", month.atDay(1));
+            return;
+        }
+        jdbcTemplate.execute("lock table customer_order_default, order_line_default in exclusive mode");
+        jdbcTemplate.execute("create temporary table stranded_order_" + suffix + " (like customer_order) on commit drop");
+        jdbcTemplate.execute("create temporary table stranded_line_" + suffix + " (like order_line) on commit drop");
+        // lines first, deleting their orders would cascade to them
+        var lines = jdbcTemplate.update("""
+                with moved as (delete from order_line_default where created_date >= ? and created_date < ? returning *)
+                insert into stranded_line_%s select * from moved
+                """.formatted(suffix), from, to);
+        var orders = jdbcTemplate.update("""
+                with moved as (delete from customer_order_default where created_date >= ? and created_date < ? returning *)
+                insert into stranded_order_%s select * from moved
+                """.formatted(suffix), from, to);
+        jdbcTemplate.queryForList("select create_order_partitions(?)", month.atDay(1));
+        jdbcTemplate.update("insert into customer_order select * from stranded_order_" + suffix);
+        jdbcTemplate.update("insert into order_line select * from stranded_line_" + suffix);
+        log.warn("Moved {} orders and {} lines of {} out of the default partitions", orders, lines, month);
+    }
+
+    /**
+     * One month per transaction, oldest first, so a failure leaves the months already archived dropped.
+     */
+    private void archiveExpired() {
+        var oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        jdbcTemplate.queryForList("""
+                        select c.relname
+                        from pg_inherits i
+                                 join pg_class c on c.oid = i.inhrelid
+                        where i.inhparent = 'customer_order'::regclass
+                        order by c.relname
+                        """, String.class)
+                .stream()
+                .map(PARTITION::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))))
+                .filter(month -> month.isBefore(oldestKept))
+                .forEach(month -> transactionTemplate.executeWithoutResult(status -> {
+                    // another instance may have archived it since the partitions were listed
+                    if (tryLock() && exists(month)) {
+                        archiver.archive(month);
+                    }
+                }));
+    }
+
+    private boolean exists(YearMonth month) {
+        return jdbcTemplate.queryForObject(
+                "select to_regclass(?) is not null", Boolean.class, "customer_order_" + suffix(month));
+    }
+
+    // released when the transaction ends
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select pg_try_advisory_xact_lock(hashtext('order_partitions'))", Boolean.class));
+    }
+}
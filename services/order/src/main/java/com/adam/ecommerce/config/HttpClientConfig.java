@@ -0,0 +1,105 @@
+package com.adam.ecommerce.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.ObservationExecChainHandler;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * The one outbound HTTP client of the order service. The RestTemplates use it directly and the
+ * Feign clients pick the {@link CloseableHttpClient} bean up instead of creating their own, so every
+ * downstream call shares the same bounded pools (one per downstream host), timeouts and metrics.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${application.http-client.connect-timeout:1000}")
+    private Duration connectTimeout;
+    @Value("${application.http-client.read-timeout:5000}")
+    private Duration readTimeout;
+    @Value("${application.http-client.pool-timeout:PT1S}")
+    private Duration poolTimeout;
+    @Value("${application.http-client.keep-alive:PT30S}")
+    private Duration keepAlive;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${application.http-client.max-connections:200}") int maxConnections,
+            @Value("${application.http-client.max-connections-per-host:50}") int maxConnectionsPerHost,
+            @Value("${application.http-client.time-to-live:PT5M}") Duration timeToLive
+    ) {
+        var connectionManager = new InstrumentedConnectionManager(meterRegistry);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setTimeToLive(TimeValue.of(timeToLive))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+        return connectionManager;
+    }
+
+    @Bean
+    public MeterBinder httpConnectionPoolMetrics(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(httpConnectionManager, "order-service");
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            PoolingHttpClientConnectionManager httpConnectionManager,
+            ObservationRegistry observationRegistry
+    ) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                // after the retry element, so every attempt is timed on its own
+                .addExecInterceptorAfter(ChainElement.RETRY.name(), "observation", new ObservationExecChainHandler(observationRegistry))
+                .build();
+    }
+
+    /**
+     * HTTP/2 is only available to the RestTemplates, through the JDK client, which multiplexes
+     * requests over one connection per host instead of pooling.
+     */
+    @Bean
+    public ClientHttpRequestFactory clientHttpRequestFactory(
+            CloseableHttpClient httpClient,
+            @Value("${application.http-client.http2:false}") boolean http2
+    ) {
+        if (http2) {
+            var factory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout)
+                    .build());
+            factory.setReadTimeout(readTimeout);
+            return factory;
+        }
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+}
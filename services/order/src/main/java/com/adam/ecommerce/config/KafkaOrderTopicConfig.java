@@ -7,10 +7,12 @@ import org.springframework.kafka.config.TopicBuilder;
 @Configuration
 public class KafkaOrderTopicConfig {
 
+    public static final String ORDER_TOPIC = "order-topic";
+
     @Bean
     public NewTopic orderTopic() {
         return TopicBuilder
-                .name("order-topic")
+                .name(ORDER_TOPIC)
                 .build();
     }
 
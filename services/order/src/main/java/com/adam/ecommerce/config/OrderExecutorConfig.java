@@ -0,0 +1,28 @@
+package com.adam.ecommerce.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class OrderExecutorConfig {
+
+    public static final String FAN_OUT_EXECUTOR = "orderFanOutExecutor";
+
+    // runs the downstream calls of one order side by side; the decorator carries the trace over
+    @Bean(FAN_OUT_EXECUTOR)
+    public ThreadPoolTaskExecutor orderFanOutExecutor(
+            @Value("${application.fan-out.pool-size:64}") int poolSize,
+            @Value("${application.fan-out.queue-capacity:1000}") int queueCapacity
+    ) {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-fan-out-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        return executor;
+    }
+}
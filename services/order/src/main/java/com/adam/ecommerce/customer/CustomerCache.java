@@ -0,0 +1,72 @@
+package com.adam.ecommerce.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Customers looked up by orders, kept until the customer service reports a change or the entry expires.
+ * Unknown ids are remembered for a shorter time, so a customer created meanwhile is not refused for long
+ * even if its event is lost.
+ */
+@Component
+@Slf4j
+public class CustomerCache {
+
+    private final CustomerClient customerClient;
+    private final Cache<String, Optional<CustomerResponse>> customers;
+
+    public CustomerCache(
+            CustomerClient customerClient,
+            MeterRegistry meterRegistry,
+            @Value("${application.customer-cache.maximum-size:100000}") long maximumSize,
+            @Value("${application.customer-cache.expire-after-write:PT10M}") Duration expireAfterWrite,
+            @Value("${application.customer-cache.not-found-expire-after-write:PT30S}") Duration notFoundExpireAfterWrite
+    ) {
+        this.customerClient = customerClient;
+        this.customers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.<String, Optional<CustomerResponse>>writing(
+                        (customerId, customer) -> customer.isPresent() ? expireAfterWrite : notFoundExpireAfterWrite))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "order.customers");
+    }
+
+    /**
+     * Failed lookups are not cached, the next order asks again.
+     */
+    public Optional<CustomerResponse> findCustomerById(String customerId) {
+        return customers.get(customerId, this::load);
+    }
+
+    // the customer service answers unknown ids with 404, which Feign throws instead of returning empty
+    private Optional<CustomerResponse> load(String customerId) {
+        try {
+            return customerClient.findCustomerById(customerId);
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    // every instance keeps its own cache, so each one reads all events under its own group
+    @KafkaListener(
+            topics = "customer-topic",
+            groupId = "order-customer-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onCustomerEvent(CustomerEvent event) {
+        log.debug("Evicting customer {} after {}", event.customerId(), event.type());
+        customers.invalidate(event.customerId());
+    }
+}
@@ -8,7 +8,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 @FeignClient(
         name = "customer-service",
-        url = "${application.config.customer-url}"
+        url = "${application.config.gateway-url:}",
+        path = "/api/v1/customers"
 )
 public interface CustomerClient {
 
@@ -0,0 +1,10 @@
+package com.adam.ecommerce.exception;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class DuplicateRequestException extends RuntimeException {
+    private final String msg;
+}
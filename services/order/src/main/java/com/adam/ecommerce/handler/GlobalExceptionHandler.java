@@ -2,7 +2,10 @@ package com.adam.ecommerce.handler;
 
 
 import com.adam.ecommerce.exception.BusinessException;
+import com.adam.ecommerce.exception.DuplicateRequestException;
+import com.adam.ecommerce.exception.IdempotencyKeyReusedException;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -11,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.HashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 
@@ -24,6 +28,20 @@ public class GlobalExceptionHandler {
                 .body(exp.getMsg());
     }
 
+    @ExceptionHandler(DuplicateRequestException.class)
+    public ResponseEntity<String> handle(DuplicateRequestException exp){
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(exp.getMsg());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> handle(IdempotencyKeyReusedException exp){
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(exp.getMsg());
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<String> handle(EntityNotFoundException exp){
         return ResponseEntity
@@ -31,7 +49,13 @@ public class GlobalExceptionHandler {
                 .body(exp.getMessage());
     }
 
-
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handle(RejectedExecutionException exp){
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many orders in progress, try again later");
+    }
 
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
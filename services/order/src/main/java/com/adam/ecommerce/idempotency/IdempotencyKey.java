@@ -0,0 +1,27 @@
+package com.adam.ecommerce.idempotency;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@Table(name = "order_idempotency_key")
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = IdempotentOrders.MAX_KEY_LENGTH)
+    private String key;
+    // null while the first request with this key is still running
+    private Integer orderId;
+    // sha-256 of the request body, null for keys claimed before it was recorded
+    @Column(length = 64)
+    private String requestHash;
+    @Column(nullable = false)
+    private LocalDateTime claimedAt;
+}
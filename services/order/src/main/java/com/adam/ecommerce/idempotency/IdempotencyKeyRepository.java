@@ -0,0 +1,59 @@
+package com.adam.ecommerce.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Returns 1 when this request is the first with the key, 0 when another one already claimed it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into order_idempotency_key (idempotency_key, request_hash, claimed_at)
+            values (:key, :requestHash, :now)
+            on conflict (idempotency_key) do nothing
+            """, nativeQuery = true)
+    int claim(
+            @Param("key") String key,
+            @Param("requestHash") String requestHash,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Takes over a claim whose request never finished, e.g. because its instance went down.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update IdempotencyKey k
+            set k.claimedAt = :now
+            where k.key = :key and k.orderId is null and k.claimedAt < :staleBefore
+            """)
+    int takeOver(
+            @Param("key") String key,
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore
+    );
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKey k set k.orderId = :orderId where k.key = :key")
+    int complete(@Param("key") String key, @Param("orderId") Integer orderId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.key = :key and k.orderId is null")
+    int release(@Param("key") String key);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.claimedAt < :before")
+    int deleteClaimedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,159 @@
+package com.adam.ecommerce.idempotency;
+
+import com.adam.ecommerce.exception.BusinessException;
+import com.adam.ecommerce.exception.DuplicateRequestException;
+import com.adam.ecommerce.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Places an order at most once per {@code Idempotency-Key}. Recent keys are answered from memory, where a retry
+ * that arrives while the first request is still running waits for its result; older keys and keys seen by other
+ * instances are answered from the {@code order_idempotency_key} table. A key may only be reused with the same
+ * request body.
+ */
+@Component
+@Slf4j
+public class IdempotentOrders {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private record Attempt(String requestHash, CompletableFuture<Integer> result) {
+    }
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Attempt> recentKeys;
+    private final Duration claimTimeout;
+    private final Duration retention;
+
+    public IdempotentOrders(
+            IdempotencyKeyRepository repository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${application.idempotency.maximum-size:100000}") long maximumSize,
+            @Value("${application.idempotency.expire-after-write:PT10M}") Duration expireAfterWrite,
+            @Value("${application.idempotency.claim-timeout:PT1M}") Duration claimTimeout,
+            @Value("${application.idempotency.retention:PT24H}") Duration retention
+    ) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentKeys, "order.idempotency");
+        this.claimTimeout = claimTimeout;
+        this.retention = retention;
+    }
+
+    public Integer execute(String key, Object request, Supplier<Integer> placeOrder) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        var mine = new Attempt(hash(request), new CompletableFuture<>());
+        var running = recentKeys.asMap().putIfAbsent(key, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), mine.requestHash());
+            return await(running.result());
+        }
+        try {
+            var orderId = placeOnce(key, mine.requestHash(), placeOrder);
+            mine.result().complete(orderId);
+            return orderId;
+        } catch (RuntimeException e) {
+            // the requests waiting on this one fail with it, the next retry starts over
+            recentKeys.asMap().remove(key, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Integer placeOnce(String key, String requestHash, Supplier<Integer> placeOrder) {
+        var now = LocalDateTime.now();
+        if (repository.claim(key, requestHash, now) == 0) {
+            repository.findById(key).ifPresent(claimed -> checkSameRequest(claimed.getRequestHash(), requestHash));
+            if (repository.takeOver(key, now, now.minus(claimTimeout)) == 0) {
+                return repository.findById(key)
+                        .map(IdempotencyKey::getOrderId)
+                        .orElseThrow(() -> new DuplicateRequestException("A request with this Idempotency-Key is still in progress"));
+            }
+        }
+        Integer orderId;
+        try {
+            orderId = placeOrder.get();
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        repository.complete(key, orderId);
+        return orderId;
+    }
+
+    private static void checkSameRequest(String claimedHash, String requestHash) {
+        if (claimedHash != null && !claimedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException("This Idempotency-Key was already used with a different request");
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash the request", e);
+        }
+    }
+
+    private void release(String key) {
+        try {
+            repository.release(key);
+        } catch (RuntimeException e) {
+            log.warn("Could not release Idempotency-Key {}, it can be reused once the claim times out", key, e);
+        }
+    }
+
+    private Integer await(CompletableFuture<Integer> running) {
+        try {
+            return running.get(claimTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("cannot create Order :: interrupted while waiting for the first request");
+        } catch (TimeoutException e) {
+            throw new DuplicateRequestException("A request with this Idempotency-Key is still in progress");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("cannot create Order :: " + e.getCause().getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.idempotency.purge-delay:PT1H}")
+    public void purge() {
+        var purged = repository.deleteClaimedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+}
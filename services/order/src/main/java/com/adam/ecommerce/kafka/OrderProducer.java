@@ -5,11 +5,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
-import static org.springframework.kafka.support.KafkaHeaders.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -19,14 +20,15 @@ public class OrderProducer {
     private final KafkaTemplate<String, OrderConfirmation> kafkaTemplate;
 
 
-    public void sendOrderConfirmation(OrderConfirmation orderConfirmation){
-        log.info("Sending order confirmation");
+    public CompletableFuture<SendResult<String, OrderConfirmation>> send(String topic, String key, OrderConfirmation orderConfirmation){
+        log.debug("Sending order confirmation {}", orderConfirmation.orderReference());
         Message<OrderConfirmation> message = MessageBuilder
                 .withPayload(orderConfirmation)
-                .setHeader(KafkaHeaders.TOPIC, "order-topic")
+                .setHeader(KafkaHeaders.TOPIC, topic)
+                .setHeader(KafkaHeaders.KEY, key)
                 .build();
 
-        kafkaTemplate.send(message);
+        return kafkaTemplate.send(message);
     }
 
 }
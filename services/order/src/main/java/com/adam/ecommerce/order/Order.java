@@ -31,6 +31,10 @@ public class Order {
     @Enumerated(STRING)
     private PaymentMethod paymentMethod;
     private String customerId;
+    @Enumerated(STRING)
+    private OrderStatus status;
+    private String statusMessage;
+    private String reservationId;
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderLine> orderLines;
 
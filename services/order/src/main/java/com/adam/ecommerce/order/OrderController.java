@@ -2,9 +2,14 @@ package com.adam.ecommerce.order;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -12,18 +17,46 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
 
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+
     private final OrderService service;
 
     @PostMapping
     public ResponseEntity<Integer> createOrder(
-            @RequestBody @Valid OrderRequest request
+            @RequestBody @Valid OrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ){
+        return ResponseEntity.ok(service.createdOrder(request, idempotencyKey));
+    }
+
+    @PostMapping("/async")
+    public ResponseEntity<Integer> submitOrder(
+            @RequestBody @Valid OrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ){
-        return ResponseEntity.ok(service.createdOrder(request));
+        var orderId = service.submitOrder(request, idempotencyKey);
+        var statusUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/orders/{order-id}/status")
+                .buildAndExpand(orderId)
+                .toUri();
+        return ResponseEntity.accepted().location(statusUri).body(orderId);
     }
 
+    // newest first; the next page starts after the cursor returned in X-Next-Cursor, absent on the last page
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> findAll(){
-        return ResponseEntity.ok(service.findAll());
+    public ResponseEntity<List<OrderResponse>> findPage(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "customerId", required = false) String customerId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ){
+        var page = service.findPage(after, size, customerId, from, to);
+        var response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR, page.nextCursor());
+        }
+        return response.body(page.orders());
     }
 
     @GetMapping("/{order-id}")
@@ -32,4 +65,20 @@ public class OrderController {
     ){
         return ResponseEntity.ok(service.findById(orderId));
     }
+
+    @GetMapping("/{order-id}/details")
+    public ResponseEntity<OrderDetailResponse> findDetailById(
+            @PathVariable("order-id") Integer orderId
+    ){
+        return ResponseEntity.ok(service.findDetailById(orderId));
+    }
+
+    // wait=PT10S holds the request until the order is confirmed or failed, for at most that long
+    @GetMapping("/{order-id}/status")
+    public DeferredResult<OrderStatusResponse> findStatus(
+            @PathVariable("order-id") Integer orderId,
+            @RequestParam(value = "wait", required = false) Duration wait
+    ){
+        return service.awaitStatus(orderId, wait);
+    }
 }
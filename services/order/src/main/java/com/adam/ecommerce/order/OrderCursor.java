@@ -0,0 +1,35 @@
+package com.adam.ecommerce.order;
+
+import com.adam.ecommerce.exception.BusinessException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Position after the last listed order, written as {@code <createdDate>_<id>}.
+ */
+record OrderCursor(LocalDateTime createdDate, Integer id) {
+
+    // sorts after every real order, so the first page needs no special case
+    static final OrderCursor START = new OrderCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Integer.MAX_VALUE);
+
+    static OrderCursor parse(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        var separator = cursor.lastIndexOf('_');
+        try {
+            return new OrderCursor(
+                    LocalDateTime.parse(cursor.substring(0, separator)),
+                    Integer.valueOf(cursor.substring(separator + 1))
+            );
+        } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+            throw new BusinessException("Invalid cursor :: " + cursor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return createdDate + "_" + id;
+    }
+}
@@ -0,0 +1,16 @@
+package com.adam.ecommerce.order;
+
+import java.math.BigDecimal;
+
+/**
+ * An order line with the product's current name and price; both are null when the product is gone
+ * or the product service could not be reached.
+ */
+public record OrderDetailLineResponse(
+        Integer id,
+        Integer productId,
+        double quantity,
+        String productName,
+        BigDecimal price
+) {
+}
@@ -0,0 +1,17 @@
+package com.adam.ecommerce.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderDetailResponse(
+        Integer id,
+        String reference,
+        BigDecimal amount,
+        PaymentMethod paymentMethod,
+        String customerId,
+        OrderStatus status,
+        LocalDateTime createdDate,
+        List<OrderDetailLineResponse> lines
+) {
+}
@@ -1,18 +1,33 @@
 package com.adam.ecommerce.order;
 
+import com.adam.ecommerce.orderline.OrderLine;
+import com.adam.ecommerce.product.ProductResponse;
 import jakarta.validation.Valid;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Service
 public class OrderMapper {
     public Order toOrder(@Valid OrderRequest request) {
-        return Order.builder()
+        var order = Order.builder()
                 .id(request.id())
                 .customerId(request.customerId())
                 .reference(request.reference())
                 .totalAmount(request.amount())
                 .paymentMethod(request.paymentMethod())
                 .build();
+        order.setOrderLines(request.products()
+                .stream()
+                .map(purchaseRequest -> OrderLine.builder()
+                        .order(order)
+                        .productId(purchaseRequest.productId())
+                        .quantity(purchaseRequest.quantity())
+                        .build())
+                .collect(Collectors.toList()));
+        return order;
     }
 
     public OrderResponse fromOrder(Order order) {
@@ -24,4 +39,40 @@ public class OrderMapper {
                 order.getCustomerId()
         );
     }
+
+    public OrderResponse fromSummary(OrderSummary order) {
+        return new OrderResponse(
+                order.id(),
+                order.reference(),
+                order.amount(),
+                order.paymentMethod(),
+                order.customerId()
+        );
+    }
+
+    public OrderDetailResponse toOrderDetail(Order order, Map<Integer, ProductResponse> products) {
+        return new OrderDetailResponse(
+                order.getId(),
+                order.getReference(),
+                order.getTotalAmount(),
+                order.getPaymentMethod(),
+                order.getCustomerId(),
+                order.getStatus(),
+                order.getCreatedDate(),
+                order.getOrderLines()
+                        .stream()
+                        .sorted(Comparator.comparing(OrderLine::getId))
+                        .map(orderLine -> {
+                            var product = products.get(orderLine.getProductId());
+                            return new OrderDetailLineResponse(
+                                    orderLine.getId(),
+                                    orderLine.getProductId(),
+                                    orderLine.getQuantity(),
+                                    product == null ? null : product.name(),
+                                    product == null ? null : product.price()
+                            );
+                        })
+                        .collect(Collectors.toList())
+        );
+    }
 }
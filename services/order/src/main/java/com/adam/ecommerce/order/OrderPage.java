@@ -0,0 +1,9 @@
+package com.adam.ecommerce.order;
+
+import java.util.List;
+
+public record OrderPage(
+        List<OrderResponse> orders,
+        String nextCursor
+) {
+}
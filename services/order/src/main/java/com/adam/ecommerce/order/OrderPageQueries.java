@@ -0,0 +1,23 @@
+package com.adam.ecommerce.order;
+
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderPageQueries {
+
+    /**
+     * Newest orders first, strictly after the given position; served by the {@code (created_date, id)} and
+     * {@code (customer_id, created_date, id)} indexes without touching the lines. Only the filters that are set
+     * become predicates, so the planner picks the index that fits them instead of a plan for every combination.
+     */
+    List<OrderSummary> findPage(
+            LocalDateTime afterDate,
+            Integer afterId,
+            String customerId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Limit limit
+    );
+}
@@ -0,0 +1,66 @@
+package com.adam.ecommerce.order;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+class OrderPageQueriesImpl implements OrderPageQueries {
+
+    private static final String SELECT_PAGE = """
+            select new com.adam.ecommerce.order.OrderSummary(
+                o.id,
+                o.reference,
+                o.totalAmount,
+                o.paymentMethod,
+                o.customerId,
+                o.createdDate
+            )
+            from Order o
+            where (o.createdDate, o.id) < (:afterDate, :afterId)
+            """;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<OrderSummary> findPage(
+            LocalDateTime afterDate,
+            Integer afterId,
+            String customerId,
+            LocalDateTime from,
+            LocalDateTime to,
+            Limit limit
+    ) {
+        var jpql = new StringBuilder(SELECT_PAGE);
+        if (customerId != null) {
+            jpql.append(" and o.customerId = :customerId");
+        }
+        if (from != null) {
+            jpql.append(" and o.createdDate >= :from");
+        }
+        if (to != null) {
+            jpql.append(" and o.createdDate < :to");
+        }
+        jpql.append(" order by o.createdDate desc, o.id desc");
+
+        var query = entityManager.createQuery(jpql.toString(), OrderSummary.class)
+                .setParameter("afterDate", afterDate)
+                .setParameter("afterId", afterId);
+        if (customerId != null) {
+            query.setParameter("customerId", customerId);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+}
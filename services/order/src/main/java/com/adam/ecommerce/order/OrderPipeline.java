@@ -0,0 +1,259 @@
+package com.adam.ecommerce.order;
+
+import com.adam.ecommerce.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves accepted orders through the reserve, pay and confirm stages, each with its own threads and bounded queue.
+ * A full reserve queue turns new orders away; the later stages push back on the stage before them instead,
+ * so an order that was reserved is never dropped.
+ */
+@Component
+@Slf4j
+public class OrderPipeline {
+
+    private final OrderWorkflow workflow;
+    private final OrderRepository repository;
+    private final OrderStatusWatcher watcher;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor reserveStage;
+    private final ThreadPoolExecutor payStage;
+    private final ThreadPoolExecutor confirmStage;
+    private final Timer totalTimer;
+    private final Duration stuckAfter;
+    private final Duration confirmAfter;
+    private final int confirmBatchSize;
+
+    public OrderPipeline(
+            OrderWorkflow workflow,
+            OrderRepository repository,
+            OrderStatusWatcher watcher,
+            MeterRegistry meterRegistry,
+            @Value("${application.pipeline.reserve-threads:16}") int reserveThreads,
+            @Value("${application.pipeline.pay-threads:16}") int payThreads,
+            @Value("${application.pipeline.confirm-threads:4}") int confirmThreads,
+            @Value("${application.pipeline.queue-capacity:1000}") int queueCapacity,
+            @Value("${application.pipeline.stuck-after:PT15M}") Duration stuckAfter,
+            @Value("${application.pipeline.confirm-after:PT1M}") Duration confirmAfter,
+            @Value("${application.pipeline.confirm-batch-size:100}") int confirmBatchSize
+    ) {
+        this.workflow = workflow;
+        this.repository = repository;
+        this.watcher = watcher;
+        this.meterRegistry = meterRegistry;
+        this.stuckAfter = stuckAfter;
+        this.confirmAfter = confirmAfter;
+        this.confirmBatchSize = confirmBatchSize;
+        this.reserveStage = stage("reserve", reserveThreads, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+        this.payStage = stage("pay", payThreads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.confirmStage = stage("confirm", confirmThreads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.totalTimer = Timer.builder("order.pipeline.total")
+                .description("Time from accepting an order to confirming or failing it")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The stage queues only live in memory, so orders an instance held when it stopped would stay pending or
+     * reserved forever. Those that did not move for {@code stuckAfter} are failed; a hold they took expires on
+     * the product side. Paid orders are left to {@link #confirmPaidOrders}.
+     * Stages refresh an order before working on it and only move it from the status they expect, so an order the
+     * sweep failed stays failed and is neither charged nor left holding stock.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.pipeline.recovery-delay:PT1M}")
+    public void failStuckOrders() {
+        try {
+            var failed = repository.failUnfinishedBefore(
+                    LocalDateTime.now().minus(stuckAfter), "order was not processed in time, please retry");
+            if (failed > 0) {
+                log.warn("Failed {} orders that were not processed within {}", failed, stuckAfter);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not fail stuck orders, trying again on the next run", e);
+        }
+    }
+
+    /**
+     * A paid order keeps its stock held on the product side only until the reservation expires. Paid orders whose
+     * confirmation failed, or whose instance stopped before confirming them, are confirmed again here every
+     * {@code recovery-delay}, well within the reservation ttl. A reservation that is gone by then cannot be
+     * confirmed any more: the order is failed and its payment needs a refund.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.pipeline.recovery-delay:PT1M}")
+    public void confirmPaidOrders() {
+        List<Order> paid;
+        try {
+            paid = repository.findByStatusAndReservationIdNotNullAndLastModifiedDateBefore(
+                    OrderStatus.PAID, LocalDateTime.now().minus(confirmAfter), Limit.of(confirmBatchSize));
+        } catch (RuntimeException e) {
+            log.warn("Could not look up paid orders, trying again on the next run", e);
+            return;
+        }
+        for (var order : paid) {
+            try {
+                workflow.confirm(order.getReservationId());
+            } catch (HttpClientErrorException.BadRequest e) {
+                log.error("Reservation {} of paid order {} is gone, the payment needs a refund",
+                        order.getReservationId(), order.getId(), e);
+                settle(order.getId(), new OrderStatusResponse(
+                        order.getId(), OrderStatus.FAILED, "reservation expired before it was confirmed"));
+                continue;
+            } catch (RuntimeException e) {
+                // refreshes the last modified date, so it is tried again after confirm-after
+                log.warn("Could not confirm reservation of order {}, trying again later", order.getId(), e);
+                repository.updateStatus(order.getId(), OrderStatus.PAID, OrderStatus.PAID, statusMessage(e));
+                continue;
+            }
+            settle(order.getId(), new OrderStatusResponse(order.getId(), OrderStatus.CONFIRMED, null));
+        }
+    }
+
+    private void settle(Integer orderId, OrderStatusResponse status) {
+        if (repository.updateStatus(orderId, OrderStatus.PAID, status.status(), status.message()) > 0) {
+            watcher.notify(status);
+        }
+    }
+
+    /**
+     * Queues a pending order; throws {@link java.util.concurrent.RejectedExecutionException} when the pipeline is full.
+     */
+    void submit(Integer orderId, OrderRequest request) {
+        var accepted = System.nanoTime();
+        reserveStage.execute(timed("reserve", () -> reserve(orderId, request, accepted)));
+    }
+
+    private void reserve(Integer orderId, OrderRequest request, long accepted) {
+        if (repository.touch(orderId, OrderStatus.PENDING) == 0) {
+            log.warn("Order {} was failed while it waited to be reserved", orderId);
+            return;
+        }
+        OrderWorkflow.ReservedOrder reserved;
+        try {
+            reserved = workflow.reserve(request);
+        } catch (RuntimeException e) {
+            fail(orderId, OrderStatus.PENDING, e, accepted);
+            return;
+        }
+        if (repository.updateReserved(orderId, reserved.reservation().reservationId()) == 0) {
+            log.warn("Order {} was failed while it was being reserved", orderId);
+            workflow.release(reserved);
+            return;
+        }
+        payStage.execute(timed("pay", () -> pay(orderId, request, reserved, accepted)));
+    }
+
+    private void pay(Integer orderId, OrderRequest request, OrderWorkflow.ReservedOrder reserved, long accepted) {
+        try {
+            workflow.payPending(orderId, request, reserved);
+        } catch (RuntimeException e) {
+            fail(orderId, OrderStatus.RESERVED, e, accepted);
+            return;
+        }
+        confirmStage.execute(timed("confirm", () -> confirm(orderId, reserved, accepted)));
+    }
+
+    private void confirm(Integer orderId, OrderWorkflow.ReservedOrder reserved, long accepted) {
+        try {
+            workflow.confirm(reserved.reservation().reservationId());
+        } catch (RuntimeException e) {
+            // the order stays paid and holding its stock until confirmPaidOrders gets the confirmation through
+            log.warn("Could not confirm reservation of order {}, trying again later", orderId, e);
+            repository.updateStatus(orderId, OrderStatus.PAID, OrderStatus.PAID, statusMessage(e));
+            return;
+        }
+        finish(OrderStatus.PAID, new OrderStatusResponse(orderId, OrderStatus.CONFIRMED, null), accepted);
+    }
+
+    private void fail(Integer orderId, OrderStatus expected, RuntimeException e, long accepted) {
+        log.warn("Order {} failed", orderId, e);
+        finish(expected, new OrderStatusResponse(orderId, OrderStatus.FAILED, statusMessage(e)), accepted);
+    }
+
+    /**
+     * Writes the final status unless the order left {@code expected} meanwhile, then whoever moved it owns it.
+     */
+    private void finish(OrderStatus expected, OrderStatusResponse status, long accepted) {
+        if (repository.updateStatus(status.id(), expected, status.status(), status.message()) == 0) {
+            return;
+        }
+        totalTimer.record(System.nanoTime() - accepted, TimeUnit.NANOSECONDS);
+        watcher.notify(status);
+    }
+
+    // status_message is a varchar(255)
+    static String statusMessage(RuntimeException e) {
+        var message = e instanceof BusinessException business ? business.getMsg() : e.getMessage();
+        return message == null || message.length() <= 255 ? message : message.substring(0, 255);
+    }
+
+    /**
+     * Records how long the task waited in the stage's queue and how long it ran.
+     */
+    private Runnable timed(String stage, Runnable task) {
+        var queued = System.nanoTime();
+        return () -> {
+            var started = System.nanoTime();
+            Timer.builder("order.pipeline.queue")
+                    .tag("stage", stage)
+                    .register(meterRegistry)
+                    .record(started - queued, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } finally {
+                Timer.builder("order.pipeline.stage")
+                        .tag("stage", stage)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private ThreadPoolExecutor stage(String name, int threads, int queueCapacity, RejectedExecutionHandler whenFull) {
+        var threadNumber = new AtomicInteger();
+        var executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "order-" + name + "-" + threadNumber.incrementAndGet()),
+                whenFull
+        );
+        new ExecutorServiceMetrics(executor, "order.pipeline." + name, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // stop taking orders first, then let the reserved and paid ones through
+        for (var stage : List.of(reserveStage, payStage, confirmStage)) {
+            stage.shutdown();
+            if (!stage.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Order pipeline stage did not drain, {} orders left", stage.getQueue().size());
+                stage.shutdownNow();
+            }
+        }
+    }
+}
@@ -1,6 +1,111 @@
 package com.adam.ecommerce.order;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface OrderRepository extends JpaRepository<Order, Integer> {
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderRepository extends JpaRepository<Order, Integer>, OrderPageQueries {
+
+    @Query("""
+            select o
+            from Order o
+            left join fetch o.orderLines
+            where o.id = :id
+            """)
+    Optional<Order> findWithLinesById(@Param("id") Integer id);
+
+    @Query("""
+            select new com.adam.ecommerce.order.OrderStatusResponse(o.id, o.status, o.statusMessage)
+            from Order o
+            where o.id = :id
+            """)
+    Optional<OrderStatusResponse> findStatusById(@Param("id") Integer id);
+
+    /**
+     * Moves the order from {@code expected} to {@code status}. Returns 0 when the order is no longer in
+     * {@code expected}, e.g. because the stuck order sweep failed it meanwhile; the caller must then leave it alone.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Order o
+            set o.status = :status, o.statusMessage = :message, o.lastModifiedDate = local datetime
+            where o.id = :id
+              and o.status = :expected
+            """)
+    int updateStatus(
+            @Param("id") Integer id,
+            @Param("expected") OrderStatus expected,
+            @Param("status") OrderStatus status,
+            @Param("message") String message
+    );
+
+    /**
+     * Moves a pending order to reserved and keeps its reservation, so the order can be confirmed after a restart.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Order o
+            set o.status = com.adam.ecommerce.order.OrderStatus.RESERVED,
+                o.reservationId = :reservationId,
+                o.lastModifiedDate = local datetime
+            where o.id = :id
+              and o.status = com.adam.ecommerce.order.OrderStatus.PENDING
+            """)
+    int updateReserved(
+            @Param("id") Integer id,
+            @Param("reservationId") String reservationId
+    );
+
+    /**
+     * Paid orders whose confirmation did not go through, served by the partial {@code customer_order_paid_idx} index.
+     */
+    List<Order> findByStatusAndReservationIdNotNullAndLastModifiedDateBefore(
+            OrderStatus status,
+            LocalDateTime before,
+            Limit limit
+    );
+
+    /**
+     * Refreshes the last modified date of an order still in {@code expected}, so the stuck order sweep leaves it
+     * alone while a stage works on it. Returns 0 when the order already moved on.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Order o
+            set o.lastModifiedDate = local datetime
+            where o.id = :id
+              and o.status = :expected
+            """)
+    int touch(
+            @Param("id") Integer id,
+            @Param("expected") OrderStatus expected
+    );
+
+    /**
+     * Fails pending and reserved orders that did not move since {@code before}; served by the partial
+     * {@code customer_order_unfinished_idx} index, so finished orders are never read.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update customer_order
+            set status = 'FAILED', status_message = :message, last_modified_date = localtimestamp
+            where status in ('PENDING', 'RESERVED')
+              and created_date < :before
+              and coalesce(last_modified_date, created_date) < :before
+            """, nativeQuery = true)
+    int failUnfinishedBefore(
+            @Param("before") LocalDateTime before,
+            @Param("message") String message
+    );
 }
@@ -1,91 +1,187 @@
 package com.adam.ecommerce.order;
 
-import com.adam.ecommerce.customer.CustomerClient;
-import com.adam.ecommerce.exception.BusinessException;
-import com.adam.ecommerce.kafka.OrderConfirmation;
-import com.adam.ecommerce.kafka.OrderProducer;
-import com.adam.ecommerce.orderline.OrderLineRequest;
-import com.adam.ecommerce.orderline.OrderLineService;
-import com.adam.ecommerce.payment.PaymentClient;
-import com.adam.ecommerce.payment.PaymentRequest;
+import com.adam.ecommerce.archive.OrderArchiveReader;
+import com.adam.ecommerce.idempotency.IdempotentOrders;
+import com.adam.ecommerce.orderline.OrderLine;
 import com.adam.ecommerce.product.ProductClient;
-import com.adam.ecommerce.product.PurchaseRequest;
+import com.adam.ecommerce.product.ProductResponse;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
-import org.springframework.http.ResponseEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.util.List;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class OrderService {
 
-    private final CustomerClient customerClient;
-    private final ProductClient productClient;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final OrderRepository repository;
     private final OrderMapper mapper;
-    private final OrderLineService orderLineService;
-    private final OrderProducer orderProducer;
-    private final PaymentClient paymentClient;
+    private final ProductClient productClient;
+    private final OrderWorkflow workflow;
+    private final OrderPipeline pipeline;
+    private final OrderStatusWatcher watcher;
+    private final IdempotentOrders idempotentOrders;
+    private final OrderArchiveReader orderArchive;
+    private final Duration maxStatusWait;
+
+    public OrderService(
+            OrderRepository repository,
+            OrderMapper mapper,
+            ProductClient productClient,
+            OrderWorkflow workflow,
+            OrderPipeline pipeline,
+            OrderStatusWatcher watcher,
+            IdempotentOrders idempotentOrders,
+            OrderArchiveReader orderArchive,
+            @Value("${application.pipeline.max-status-wait:PT30S}") Duration maxStatusWait
+    ) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.productClient = productClient;
+        this.workflow = workflow;
+        this.pipeline = pipeline;
+        this.watcher = watcher;
+        this.idempotentOrders = idempotentOrders;
+        this.orderArchive = orderArchive;
+        this.maxStatusWait = maxStatusWait;
+    }
+
+    /**
+     * Places the order once per {@code idempotencyKey}: a retry with the same key gets the first order's id back.
+     */
+    public Integer createdOrder(@Valid OrderRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return createdOrder(request);
+        }
+        return idempotentOrders.execute(idempotencyKey, request, () -> createdOrder(request));
+    }
 
     public Integer createdOrder(@Valid OrderRequest request) {
-        // check the customer --> OpenFeign
-        var customer = this.customerClient.findCustomerById(request.customerId())
-                .orElseThrow(() -> new BusinessException("cannot create Order :: Customer not found with provided ID"));
+        var reserved = workflow.reserve(request);
+        var order = workflow.place(request, reserved);
+        try {
+            workflow.confirm(reserved.reservation().reservationId());
+        } catch (RuntimeException e) {
+            // the order is paid, failing now would let a retry pay a second time; it stays paid until the
+            // confirmation retry of the pipeline gets through
+            log.warn("Could not confirm reservation of order {}", order.getId(), e);
+            repository.updateStatus(order.getId(), OrderStatus.PAID, OrderStatus.PAID, OrderPipeline.statusMessage(e));
+            return order.getId();
+        }
+        repository.updateStatus(order.getId(), OrderStatus.PAID, OrderStatus.CONFIRMED, null);
+        return order.getId();
+    }
 
-        // Purchase the products --> Product-ms (RestTemplate)
-        var purchasedProducts = this.productClient.purchaseProducts(request.products());
+    public Integer submitOrder(@Valid OrderRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return submitOrder(request);
+        }
+        return idempotentOrders.execute(idempotencyKey, request, () -> submitOrder(request));
+    }
 
-        // persist Order
-        var order = this.repository.save(mapper.toOrder(request));
-        // persist Order lines (saving)
-        for (PurchaseRequest purchaseRequest : request.products()) {
-            orderLineService.saveOrderLine(
-                    new OrderLineRequest(
-                            null,
-                            order.getId(),
-                            purchaseRequest.productId(),
-                            purchaseRequest.quantity()
-                    )
-            );
+    /**
+     * Saves the order as pending and leaves the reservation, payment and confirmation to the {@link OrderPipeline}.
+     */
+    public Integer submitOrder(@Valid OrderRequest request) {
+        var order = workflow.saveOrder(request, OrderStatus.PENDING);
+        try {
+            pipeline.submit(order.getId(), request);
+        } catch (RejectedExecutionException e) {
+            repository.updateStatus(order.getId(), OrderStatus.PENDING, OrderStatus.FAILED, "order pipeline is full");
+            throw e;
         }
+        return order.getId();
+    }
 
-        var paymentRequest = new PaymentRequest(
-                request.amount(),
-                request.paymentMethod(),
-                order.getId(),
-                order.getReference(),
-                customer
-        );
-        paymentClient.requestOrderPayment(paymentRequest);
+    public OrderStatusResponse findStatus(Integer orderId) {
+        return repository.findStatusById(orderId)
+                .or(() -> orderArchive.findById(orderId)
+                        .map(order -> new OrderStatusResponse(order.getId(), order.getStatus(), order.getStatusMessage())))
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Order with id %s not found", orderId)));
+    }
 
-        // send the order confirmation --> notification-ms (kafka)
-        orderProducer.sendOrderConfirmation(
-                new OrderConfirmation(
-                        request.reference(),
-                        request.amount(),
-                        request.paymentMethod(),
-                        customer,
-                        purchasedProducts
-                )
+    /**
+     * Answers once the order is confirmed or failed, or with its current status when {@code wait} runs out.
+     */
+    public DeferredResult<OrderStatusResponse> awaitStatus(Integer orderId, Duration wait) {
+        var timeout = wait == null ? Duration.ZERO : (wait.compareTo(maxStatusWait) > 0 ? maxStatusWait : wait);
+        var result = new DeferredResult<OrderStatusResponse>(Math.max(timeout.toMillis(), 1));
+        result.onTimeout(() -> result.setResult(findStatus(orderId)));
+        // watch before reading, so a status written in between is not missed
+        watcher.watch(orderId, result);
+        OrderStatusResponse status;
+        try {
+            status = findStatus(orderId);
+        } catch (EntityNotFoundException e) {
+            result.setErrorResult(e);
+            return result;
+        }
+        // orders placed before statuses existed have none, nothing will change them any more
+        if (status.status() == null || status.status().isFinal() || timeout.isZero()) {
+            result.setResult(status);
+        }
+        return result;
+    }
+
+    public OrderPage findPage(String after, int size, String customerId, LocalDateTime from, LocalDateTime to) {
+        var pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        var cursor = OrderCursor.parse(after);
+        var orders = repository.findPage(
+                cursor.createdDate(),
+                cursor.id(),
+                customerId,
+                from,
+                to,
+                Limit.of(pageSize)
+        );
+        var nextCursor = orders.size() < pageSize ? null : orders.get(orders.size() - 1);
+        return new OrderPage(
+                orders.stream()
+                        .map(mapper::fromSummary)
+                        .collect(Collectors.toList()),
+                nextCursor == null ? null : new OrderCursor(nextCursor.createdDate(), nextCursor.id()).toString()
         );
-        return order.getId();
     }
 
-    public List<OrderResponse> findAll() {
-        return repository.findAll()
+    /**
+     * Reads the order and its lines in one query, then the products of all lines in one call.
+     */
+    public OrderDetailResponse findDetailById(Integer orderId) {
+        var order = repository.findWithLinesById(orderId)
+                .or(() -> orderArchive.findById(orderId))
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Order with id %s not found", orderId)));
+        var productIds = order.getOrderLines()
                 .stream()
-                .map(mapper::fromOrder)
-                .collect(Collectors.toList());
+                .map(OrderLine::getProductId)
+                .collect(Collectors.toSet());
+        Map<Integer, ProductResponse> products;
+        try {
+            products = productClient.findAllById(productIds)
+                    .stream()
+                    .collect(Collectors.toMap(ProductResponse::id, Function.identity()));
+        } catch (RuntimeException e) {
+            // the order is still worth showing without names and prices
+            log.warn("Could not load the products of order {}", orderId, e);
+            products = Map.of();
+        }
+        return mapper.toOrderDetail(order, products);
     }
 
     public OrderResponse findById(Integer orderId) {
         return repository.findById(orderId)
+                .or(() -> orderArchive.findById(orderId))
                 .map(mapper::fromOrder)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Order with id %s not found", orderId)));
     }
@@ -0,0 +1,13 @@
+package com.adam.ecommerce.order;
+
+public enum OrderStatus {
+    PENDING,
+    RESERVED,
+    PAID,
+    CONFIRMED,
+    FAILED;
+
+    public boolean isFinal() {
+        return this == CONFIRMED || this == FAILED;
+    }
+}
@@ -0,0 +1,8 @@
+package com.adam.ecommerce.order;
+
+public record OrderStatusResponse(
+        Integer id,
+        OrderStatus status,
+        String message
+) {
+}
@@ -0,0 +1,37 @@
+package com.adam.ecommerce.order;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-polling requests waiting for an order of this instance to be confirmed or to fail.
+ * A request served by another instance than the one running the order only answers on its timeout.
+ */
+@Component
+public class OrderStatusWatcher {
+
+    private final Map<Integer, Set<DeferredResult<OrderStatusResponse>>> watchers = new ConcurrentHashMap<>();
+
+    void watch(Integer orderId, DeferredResult<OrderStatusResponse> result) {
+        watchers.computeIfAbsent(orderId, id -> ConcurrentHashMap.newKeySet()).add(result);
+        result.onCompletion(() -> unwatch(orderId, result));
+    }
+
+    void notify(OrderStatusResponse status) {
+        var waiting = watchers.remove(status.id());
+        if (waiting != null) {
+            waiting.forEach(result -> result.setResult(status));
+        }
+    }
+
+    private void unwatch(Integer orderId, DeferredResult<OrderStatusResponse> result) {
+        watchers.computeIfPresent(orderId, (id, waiting) -> {
+            waiting.remove(result);
+            return waiting.isEmpty() ? null : waiting;
+        });
+    }
+}
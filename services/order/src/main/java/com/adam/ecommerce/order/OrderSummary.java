@@ -0,0 +1,17 @@
+package com.adam.ecommerce.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An order as listed, without its lines; {@code createdDate} is only read to build the next cursor.
+ */
+record OrderSummary(
+        Integer id,
+        String reference,
+        BigDecimal amount,
+        PaymentMethod paymentMethod,
+        String customerId,
+        LocalDateTime createdDate
+) {
+}
@@ -0,0 +1,247 @@
+package com.adam.ecommerce.order;
+
+import com.adam.ecommerce.customer.CustomerCache;
+import com.adam.ecommerce.customer.CustomerResponse;
+import com.adam.ecommerce.exception.BusinessException;
+import com.adam.ecommerce.kafka.OrderConfirmation;
+import com.adam.ecommerce.outbox.OrderOutbox;
+import com.adam.ecommerce.payment.PaymentClient;
+import com.adam.ecommerce.payment.PaymentRequest;
+import com.adam.ecommerce.product.ProductClient;
+import com.adam.ecommerce.product.ReservationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.adam.ecommerce.config.OrderExecutorConfig.FAN_OUT_EXECUTOR;
+
+/**
+ * The steps of placing an order, shared by the synchronous endpoint and the asynchronous pipeline.
+ */
+@Component
+@Slf4j
+public class OrderWorkflow {
+
+    record ReservedOrder(CustomerResponse customer, ReservationResponse reservation) {
+    }
+
+    private final CustomerCache customerCache;
+    private final ProductClient productClient;
+    private final OrderRepository repository;
+    private final OrderMapper mapper;
+    private final OrderOutbox orderOutbox;
+    private final PaymentClient paymentClient;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor fanOutExecutor;
+    private final Duration fanOutTimeout;
+
+    public OrderWorkflow(
+            CustomerCache customerCache,
+            ProductClient productClient,
+            OrderRepository repository,
+            OrderMapper mapper,
+            OrderOutbox orderOutbox,
+            PaymentClient paymentClient,
+            PlatformTransactionManager transactionManager,
+            @Qualifier(FAN_OUT_EXECUTOR) TaskExecutor fanOutExecutor,
+            @Value("${application.fan-out.timeout:PT5S}") Duration fanOutTimeout
+    ) {
+        this.customerCache = customerCache;
+        this.productClient = productClient;
+        this.repository = repository;
+        this.mapper = mapper;
+        this.orderOutbox = orderOutbox;
+        this.paymentClient = paymentClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fanOutExecutor = fanOutExecutor;
+        this.fanOutTimeout = fanOutTimeout;
+    }
+
+    /**
+     * Checks the customer --> OpenFeign and reserves the products --> Product-ms (RestTemplate) at the same time.
+     * The stock is only taken for good once the payment went through.
+     */
+    ReservedOrder reserve(OrderRequest request) {
+        var deadline = System.nanoTime() + fanOutTimeout.toNanos();
+        var customerLookup = CompletableFuture.supplyAsync(
+                () -> this.customerCache.findCustomerById(request.customerId()), fanOutExecutor);
+        var reservationCall = CompletableFuture.supplyAsync(
+                () -> this.productClient.reserveProducts(request.products()), fanOutExecutor);
+
+        CustomerResponse customer;
+        try {
+            customer = await(customerLookup, deadline)
+                    .orElseThrow(() -> new BusinessException("cannot create Order :: Customer not found with provided ID"));
+        } catch (RuntimeException e) {
+            releaseWhenReserved(reservationCall);
+            throw e;
+        }
+        ReservationResponse reservation;
+        try {
+            reservation = await(reservationCall, deadline);
+        } catch (BusinessException e) {
+            // timed out: the hold may still be taken after we gave up
+            releaseWhenReserved(reservationCall);
+            throw e;
+        }
+        return new ReservedOrder(customer, reservation);
+    }
+
+    /**
+     * Persists the order and its lines as pending, then takes the payment as {@link #payPending} does.
+     * The order is marked failed when the payment does not go through.
+     */
+    Order place(OrderRequest request, ReservedOrder reserved) {
+        Order order;
+        try {
+            order = saveOrder(request, OrderStatus.PENDING, reserved.reservation().reservationId());
+        } catch (RuntimeException e) {
+            release(reserved);
+            throw e;
+        }
+        try {
+            pay(order.getId(), request, reserved, OrderStatus.PENDING, OrderStatus.PAID);
+        } catch (RuntimeException e) {
+            repository.updateStatus(order.getId(), OrderStatus.PENDING, OrderStatus.FAILED, OrderPipeline.statusMessage(e));
+            throw e;
+        }
+        return order;
+    }
+
+    /**
+     * Takes the payment of an order the pipeline reserved.
+     */
+    void payPending(Integer orderId, OrderRequest request, ReservedOrder reserved) {
+        pay(orderId, request, reserved, OrderStatus.RESERVED, OrderStatus.PAID);
+    }
+
+    /**
+     * Takes the held stock for good. The product service confirms a reservation twice without complaint, so a
+     * confirmation may be retried whenever its outcome is unknown.
+     */
+    void confirm(String reservationId) {
+        this.productClient.confirmReservation(reservationId);
+    }
+
+    Order saveOrder(OrderRequest request, OrderStatus status) {
+        return saveOrder(request, status, null);
+    }
+
+    /**
+     * Inserts the order and, through the cascade, its lines in one transaction; the lines go out as one JDBC batch.
+     */
+    Order saveOrder(OrderRequest request, OrderStatus status, String reservationId) {
+        return transactionTemplate.execute(transaction -> {
+            var order = mapper.toOrder(request);
+            order.setStatus(status);
+            order.setReservationId(reservationId);
+            return this.repository.save(order);
+        });
+    }
+
+    /**
+     * Calls the payment service outside any transaction, so no connection is held while it answers, then moves the
+     * order from {@code expected} to {@code paidStatus} and queues the confirmation --> notification-ms (kafka) in
+     * one short transaction. The order id keys the payment, so a retried order is charged once. An order the stuck
+     * order sweep failed is not charged; the reservation is released when anything fails.
+     */
+    private void pay(
+            Integer orderId,
+            OrderRequest request,
+            ReservedOrder reserved,
+            OrderStatus expected,
+            OrderStatus paidStatus
+    ) {
+        // also keeps the sweep away while the payment service answers
+        if (repository.touch(orderId, expected) == 0) {
+            release(reserved);
+            throw new BusinessException("cannot create Order :: order was failed before it was paid");
+        }
+        var paymentRequest = new PaymentRequest(
+                request.amount(),
+                request.paymentMethod(),
+                orderId,
+                request.reference(),
+                reserved.customer()
+        );
+        try {
+            paymentClient.requestOrderPayment("order-" + orderId, paymentRequest);
+        } catch (RuntimeException e) {
+            release(reserved);
+            throw e;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (repository.updateStatus(orderId, expected, paidStatus, null) == 0) {
+                    throw new BusinessException("cannot create Order :: order was failed while it was paid");
+                }
+                orderOutbox.record(
+                        orderId,
+                        new OrderConfirmation(
+                                request.reference(),
+                                request.amount(),
+                                request.paymentMethod(),
+                                reserved.customer(),
+                                reserved.reservation().products()
+                        )
+                );
+            });
+        } catch (RuntimeException e) {
+            log.error("Order {} was paid but its status could not be saved, the payment needs a refund", orderId, e);
+            release(reserved);
+            throw e;
+        }
+    }
+
+    /**
+     * Called while another failure is on its way out: a failed release is only logged so that failure is the one
+     * reported, and the product service drops the hold once it expires.
+     */
+    void release(ReservedOrder reserved) {
+        try {
+            this.productClient.releaseReservation(reserved.reservation().reservationId());
+        } catch (RuntimeException e) {
+            log.warn("Could not release reservation {}, it will expire", reserved.reservation().reservationId(), e);
+        }
+    }
+
+    /**
+     * Gives the stock back as soon as the reservation exists, even if it only answers after we stopped waiting.
+     * A release that fails is not retried: the product service drops the hold once it expires.
+     */
+    private void releaseWhenReserved(CompletableFuture<ReservationResponse> reservationCall) {
+        reservationCall.thenAccept(reservation -> {
+            try {
+                this.productClient.releaseReservation(reservation.reservationId());
+            } catch (RuntimeException e) {
+                log.warn("Could not release reservation {}, it will expire", reservation.reservationId(), e);
+            }
+        });
+    }
+
+    private static <T> T await(CompletableFuture<T> call, long deadline) {
+        try {
+            return call.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("cannot create Order :: interrupted while waiting for downstream services");
+        } catch (TimeoutException e) {
+            throw new BusinessException("cannot create Order :: downstream services did not answer in time");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("cannot create Order :: " + e.getCause().getMessage());
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.adam.ecommerce.order.Order;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
@@ -20,5 +22,13 @@ public class OrderLine {
     private Order order;
     private Integer productId;
     private double quantity;
+    // partition key of order_line, always the creation date of the order
+    @Column(updatable = false, nullable = false)
+    private LocalDateTime createdDate;
+
+    @PrePersist
+    void copyCreatedDate() {
+        createdDate = order.getCreatedDate();
+    }
 
 }
@@ -1,29 +1,15 @@
 package com.adam.ecommerce.orderline;
 
 
-import com.adam.ecommerce.order.Order;
 import org.springframework.stereotype.Service;
 
 @Service
 public class OrderLineMapper {
 
-    public OrderLine toOrderLine(OrderLineRequest request) {
-        return OrderLine.builder()
-                .id(request.id())
-                .quantity(request.quantity())
-                .order(
-                        Order.builder()
-                                .id(request.orderId())
-                                .build()
-                )
-                .productId(request.productId())
-
-                .build();
-    }
-
     public OrderLineResponse toOrderlineResponse(OrderLine orderLine) {
         return new OrderLineResponse(
                 orderLine.getId(),
+                orderLine.getProductId(),
                 orderLine.getQuantity()
         );
     }
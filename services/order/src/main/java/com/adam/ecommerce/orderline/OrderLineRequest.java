@@ -1,9 +0,0 @@
-package com.adam.ecommerce.orderline;
-
-public record OrderLineRequest(
-        Integer id,
-        Integer orderId,
-        Integer productId,
-        double quantity
-) {
-}
\ No newline at end of file
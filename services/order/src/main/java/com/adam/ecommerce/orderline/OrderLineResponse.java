@@ -2,6 +2,7 @@ package com.adam.ecommerce.orderline;
 
 public record OrderLineResponse(
         Integer id ,
+        Integer productId,
         double quantity
 
 ) {
@@ -0,0 +1,39 @@
+package com.adam.ecommerce.outbox;
+
+import com.adam.ecommerce.kafka.OrderConfirmation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static com.adam.ecommerce.config.KafkaOrderTopicConfig.ORDER_TOPIC;
+
+/**
+ * Stores the order confirmation in the transaction that creates the order; {@link OrderOutboxRelay}
+ * ships it to Kafka afterwards, so the request never waits on the broker.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    private final OrderOutboxRepository repository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Integer orderId, OrderConfirmation orderConfirmation) {
+        try {
+            repository.save(OrderOutboxEvent.builder()
+                    .topic(ORDER_TOPIC)
+                    .messageKey(String.valueOf(orderId))
+                    .payload(objectMapper.writeValueAsString(orderConfirmation))
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the confirmation of order " + orderId, e);
+        }
+    }
+}
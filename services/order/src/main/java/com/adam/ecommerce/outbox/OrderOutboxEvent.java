@@ -0,0 +1,28 @@
+package com.adam.ecommerce.outbox;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@Table(name = "order_outbox")
+public class OrderOutboxEvent {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    @Column(nullable = false)
+    private String topic;
+    @Column(nullable = false)
+    private String messageKey;
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,122 @@
+package com.adam.ecommerce.outbox;
+
+import com.adam.ecommerce.kafka.OrderConfirmation;
+import com.adam.ecommerce.kafka.OrderProducer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox to Kafka in id order, one batch per transaction, and deletes a batch once the
+ * broker acknowledged all of it. A failed batch stays in the table and is sent again, so delivery
+ * is at least once; the idempotent producer keeps retries of one send from duplicating it.
+ */
+@Component
+@Slf4j
+public class OrderOutboxRelay {
+
+    private final OrderOutboxRepository repository;
+    private final OrderProducer orderProducer;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Counter sent;
+    private final Timer batchTime;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OrderOutboxRelay(
+            OrderOutboxRepository repository,
+            OrderProducer orderProducer,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${application.outbox.batch-size:500}") int batchSize,
+            @Value("${application.outbox.send-timeout:PT10S}") Duration sendTimeout
+    ) {
+        this.repository = repository;
+        this.orderProducer = orderProducer;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.sent = Counter.builder("order.outbox.sent")
+                .description("Order confirmations acknowledged by Kafka")
+                .register(meterRegistry);
+        this.batchTime = Timer.builder("order.outbox.batch")
+                .description("Time to send one outbox batch and have it acknowledged")
+                .register(meterRegistry);
+        Gauge.builder("order.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age in seconds of the oldest order confirmation not sent yet")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.relay-delay:PT0.5S}")
+    public void relay() {
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Could not relay order confirmations, they will be sent again", e);
+        } finally {
+            lagMillis.set(repository.findOldestCreatedAt()
+                    .map(createdAt -> Duration.between(createdAt, LocalDateTime.now()).toMillis())
+                    .orElse(0L));
+        }
+    }
+
+    private int relayBatch() {
+        if (!repository.tryLockRelay()) {
+            return 0;
+        }
+        var events = repository.findBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        var start = System.nanoTime();
+        var sends = events
+                .stream()
+                .map(event -> orderProducer.send(event.getTopic(), event.getMessageKey(), read(event)))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(sends).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relaying order confirmations", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Kafka did not acknowledge order confirmations", e);
+        }
+        repository.deleteAllInBatch(events);
+        batchTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        sent.increment(events.size());
+        return events.size();
+    }
+
+    private OrderConfirmation read(OrderOutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), OrderConfirmation.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable order confirmation " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.adam.ecommerce.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    /**
+     * Only one relay may hold this lock at a time, so events leave in the order they were written.
+     * It is released when the transaction ends.
+     */
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('order_outbox_relay'))", nativeQuery = true)
+    boolean tryLockRelay();
+
+    @Query(value = """
+            select *
+            from order_outbox
+            order by id
+            limit :limit
+            """, nativeQuery = true)
+    List<OrderOutboxEvent> findBatch(@Param("limit") int limit);
+
+    @Query("select min(e.createdAt) from OrderOutboxEvent e")
+    Optional<LocalDateTime> findOldestCreatedAt();
+}
@@ -3,13 +3,21 @@ package com.adam.ecommerce.payment;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 @FeignClient(
-        name = "product-service",
-        url = "${application.config.payment-url}"
+        name = "payment-service",
+        url = "${application.config.gateway-url:}",
+        path = "/api/v1/payments"
 )
 public interface PaymentClient {
 
+    /**
+     * The payment service takes one payment per {@code idempotencyKey}, so the call can be retried safely.
+     */
     @PostMapping
-    Integer requestOrderPayment(@RequestBody PaymentRequest request);
+    Integer requestOrderPayment(
+            @RequestHeader("Idempotency-Key") String idempotencyKey,
+            @RequestBody PaymentRequest request
+    );
 }
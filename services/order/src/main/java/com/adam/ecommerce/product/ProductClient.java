@@ -2,8 +2,8 @@ package com.adam.ecommerce.product;
 
 
 import com.adam.ecommerce.exception.BusinessException;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -12,18 +12,39 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static org.springframework.http.HttpMethod.*;
 
 @Service
-@RequiredArgsConstructor
 public class ProductClient {
 
-    @Value("${application.config.product-url}")
-    private String productUrl;
+    // the product service refuses batches larger than its page size
+    static final int MAX_BATCH_SIZE = 100;
+
+    private final String productUrl;
     private final RestTemplate restTemplate;
 
+    /**
+     * Calls the product service straight through Eureka, or through the gateway when
+     * {@code application.config.gateway-url} is set.
+     */
+    public ProductClient(
+            RestTemplate restTemplate,
+            @LoadBalanced RestTemplate loadBalancedRestTemplate,
+            @Value("${application.config.gateway-url:}") String gatewayUrl
+    ) {
+        if (gatewayUrl.isBlank()) {
+            this.productUrl = "http://product-service/api/v1/products";
+            this.restTemplate = loadBalancedRestTemplate;
+        } else {
+            this.productUrl = gatewayUrl + "/api/v1/products";
+            this.restTemplate = restTemplate;
+        }
+    }
+
     public List<PurchaseResponse> purchaseProducts(List<PurchaseRequest> requestBody){
         HttpHeaders headers = new HttpHeaders();
         headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
@@ -43,5 +64,69 @@ public class ProductClient {
         return responseEntity.getBody();
     }
 
+    public List<ProductResponse> findAllById(Collection<Integer> productIds){
+        var ids = List.copyOf(productIds);
+        var products = new ArrayList<ProductResponse>(ids.size());
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            products.addAll(findBatchById(ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size()))));
+        }
+        return products;
+    }
+
+    private List<ProductResponse> findBatchById(List<Integer> productIds){
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        HttpEntity<List<Integer>> requestEntity = new HttpEntity<>(productIds,headers);
+        ParameterizedTypeReference<List<ProductResponse>> responseType =
+                new ParameterizedTypeReference<List<ProductResponse>>() {};
+
+        ResponseEntity<List<ProductResponse>> responseEntity = restTemplate.exchange(
+                productUrl + "/batch",
+                POST ,
+                requestEntity,
+                responseType
+        );
+        if(responseEntity.getStatusCode().isError()){
+            throw new BusinessException("An error occurred while fetching products: " + responseEntity.getStatusCode());
+        }
+        return responseEntity.getBody();
+    }
+
+    public ReservationResponse reserveProducts(List<PurchaseRequest> requestBody){
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        HttpEntity<List<PurchaseRequest>> requestEntity = new HttpEntity<>(requestBody,headers);
 
+        ResponseEntity<ReservationResponse> responseEntity = restTemplate.exchange(
+                productUrl + "/reservations",
+                POST ,
+                requestEntity,
+                ReservationResponse.class
+        );
+        if(responseEntity.getStatusCode().isError()){
+            throw new BusinessException("An error occurred while reserving products: " + responseEntity.getStatusCode());
+        }
+        return responseEntity.getBody();
+    }
+
+    public void confirmReservation(String reservationId){
+        ResponseEntity<Void> responseEntity = restTemplate.exchange(
+                productUrl + "/reservations/" + reservationId + "/confirm",
+                POST ,
+                null,
+                Void.class
+        );
+        if(responseEntity.getStatusCode().isError()){
+            throw new BusinessException("An error occurred while confirming reservation: " + responseEntity.getStatusCode());
+        }
+    }
+
+    public void releaseReservation(String reservationId){
+        restTemplate.exchange(
+                productUrl + "/reservations/" + reservationId,
+                DELETE ,
+                null,
+                Void.class
+        );
+    }
 }
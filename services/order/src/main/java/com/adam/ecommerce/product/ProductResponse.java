@@ -0,0 +1,15 @@
+package com.adam.ecommerce.product;
+
+import java.math.BigDecimal;
+
+public record ProductResponse(
+        Integer id,
+        String name,
+        String description,
+        double available_quantity,
+        BigDecimal price,
+        Integer categoryId,
+        String categoryName,
+        String categoryDescription
+) {
+}
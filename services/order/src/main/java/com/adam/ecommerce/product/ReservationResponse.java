@@ -0,0 +1,11 @@
+package com.adam.ecommerce.product;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ReservationResponse(
+        String reservationId,
+        LocalDateTime expiresAt,
+        List<PurchaseResponse> products
+) {
+}
@@ -0,0 +1,135 @@
+-- Orders and their lines are range partitioned by month of created_date, so old months can be
+-- archived and dropped as a whole. A line carries the created_date of its order and lives in the
+-- partition of the same month.
+
+-- databases created by hibernate before flyway: keep the plain tables aside and copy them over below
+alter table if exists order_line rename to order_line_unpartitioned;
+alter table if exists customer_order rename to customer_order_unpartitioned;
+alter index if exists order_line_pkey rename to order_line_unpartitioned_pkey;
+alter index if exists customer_order_pkey rename to customer_order_unpartitioned_pkey;
+drop index if exists customer_order_created_date_id_idx;
+drop index if exists customer_order_customer_id_created_date_id_idx;
+
+create table customer_order
+(
+    id                 integer      not null,
+    reference          varchar(255),
+    total_amount       numeric(38, 2),
+    payment_method     varchar(255),
+    customer_id        varchar(255),
+    status             varchar(255),
+    status_message     varchar(255),
+    created_date       timestamp(6) not null,
+    last_modified_date timestamp(6),
+    primary key (id, created_date)
+) partition by range (created_date);
+
+create table order_line
+(
+    id           integer          not null,
+    order_id     integer,
+    product_id   integer,
+    quantity     double precision not null,
+    created_date timestamp(6)     not null,
+    primary key (id, created_date),
+    foreign key (order_id, created_date) references customer_order (id, created_date) on delete cascade
+) partition by range (created_date);
+
+create index customer_order_created_date_id_idx on customer_order (created_date, id);
+create index customer_order_customer_id_created_date_id_idx on customer_order (customer_id, created_date, id);
+create index order_line_order_id_idx on order_line (order_id);
+
+-- rows outside every monthly partition land here instead of failing; the partition maintainer
+-- keeps months ahead created so it stays empty
+create table customer_order_default partition of customer_order default;
+create table order_line_default partition of order_line default;
+
+create sequence if not exists customer_order_seq increment by 50;
+create sequence if not exists order_line_seq increment by 50;
+
+-- creates the partitions of the month starting at the given day, if they do not exist yet
+create or replace function create_order_partitions(month date) returns void as
+$$
+declare
+    suffix text := to_char(month, '"p"YYYY_MM');
+begin
+    execute format(
+            'create table if not exists %I partition of customer_order for values from (%L) to (%L)',
+            'customer_order_' || suffix, month, month + interval '1 month');
+    execute format(
+            'create table if not exists %I partition of order_line for values from (%L) to (%L)',
+            'order_line_' || suffix, month, month + interval '1 month');
+end;
+$$ language plpgsql;
+
+do
+$$
+declare
+    month date;
+begin
+    for month in
+        select generate_series(date_trunc('month', now()), date_trunc('month', now()) + interval '3 months', interval '1 month')::date
+        loop
+            perform create_order_partitions(month);
+        end loop;
+
+    if to_regclass('customer_order_unpartitioned') is not null then
+        -- tables created before orders had a status
+        alter table customer_order_unpartitioned
+            add column if not exists status         varchar(255),
+            add column if not exists status_message varchar(255);
+
+        for month in
+            select distinct date_trunc('month', created_date)::date from customer_order_unpartitioned
+            loop
+                perform create_order_partitions(month);
+            end loop;
+
+        insert into customer_order (id, reference, total_amount, payment_method, customer_id, status, status_message,
+                                    created_date, last_modified_date)
+        select id, reference, total_amount, payment_method, customer_id, status, status_message,
+               created_date, last_modified_date
+        from customer_order_unpartitioned;
+
+        insert into order_line (id, order_id, product_id, quantity, created_date)
+        select l.id, l.order_id, l.product_id, l.quantity, o.created_date
+        from order_line_unpartitioned l
+                 join customer_order_unpartitioned o on o.id = l.order_id;
+
+        drop table order_line_unpartitioned;
+        drop table customer_order_unpartitioned;
+    end if;
+end;
+$$;
+
+create table if not exists order_outbox
+(
+    id          bigint       not null
+        primary key,
+    topic       varchar(255) not null,
+    message_key varchar(255) not null,
+    payload     text         not null,
+    created_at  timestamp    not null
+);
+
+create sequence if not exists order_outbox_seq increment by 50;
+
+create table if not exists order_idempotency_key
+(
+    idempotency_key varchar(255) not null
+        primary key,
+    order_id        integer,
+    claimed_at      timestamp    not null
+);
+
+-- partitions that were archived to files and dropped, with the order ids each file holds
+create table order_archive
+(
+    partition_name varchar(255) not null
+        primary key,
+    file           varchar(1024) not null,
+    min_order_id   integer,
+    max_order_id   integer,
+    order_count    integer      not null,
+    archived_at    timestamp    not null
+);
@@ -0,0 +1,4 @@
+-- only the orders still in the pipeline, for the stuck order sweep
+create index if not exists customer_order_unfinished_idx
+    on customer_order (created_date)
+    where status in ('PENDING', 'RESERVED');
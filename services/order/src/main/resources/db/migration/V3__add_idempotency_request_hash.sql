@@ -0,0 +1,4 @@
+-- sha-256 of the first request with the key, a different payload under the same key is refused;
+-- null for keys claimed before it existed
+alter table if exists order_idempotency_key
+    add column if not exists request_hash varchar(64);
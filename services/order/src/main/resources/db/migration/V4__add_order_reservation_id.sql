@@ -0,0 +1,8 @@
+-- the product hold of an order, so a paid order can still be confirmed after the instance that paid it stopped
+alter table customer_order
+    add column if not exists reservation_id varchar(36);
+
+-- only the paid orders waiting for their confirmation, for the confirmation retry
+create index if not exists customer_order_paid_idx
+    on customer_order (last_modified_date)
+    where status = 'PAID';
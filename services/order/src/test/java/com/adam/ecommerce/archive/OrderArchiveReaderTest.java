@@ -0,0 +1,109 @@
+package com.adam.ecommerce.archive;
+
+import com.adam.ecommerce.order.OrderStatus;
+import com.adam.ecommerce.order.PaymentMethod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderArchiveReaderTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 15, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private OrderArchiveRepository repository;
+    private OrderArchiveReader reader;
+
+    @BeforeEach
+    void setup() {
+        repository = Mockito.mock(OrderArchiveRepository.class);
+        reader = new OrderArchiveReader(repository, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should read an archived order with its lines")
+    void findById_archived() throws IOException {
+        var file = writeArchive(10, 12, 15);
+        Mockito.when(repository.findCovering(12)).thenReturn(List.of(entry(file)));
+
+        var order = reader.findById(12).orElseThrow();
+
+        assertEquals(12, order.getId());
+        assertEquals("ORDER-12", order.getReference());
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        assertEquals(CREATED, order.getCreatedDate());
+        assertEquals(2, order.getOrderLines().size());
+        assertEquals(7, order.getOrderLines().get(0).getProductId());
+        assertSame(order, order.getOrderLines().get(0).getOrder());
+    }
+
+    @Test
+    @DisplayName("Should not find an order missing from a file covering its id")
+    void findById_notInFile() throws IOException {
+        var file = writeArchive(10, 12, 15);
+        Mockito.when(repository.findCovering(11)).thenReturn(List.of(entry(file)));
+
+        assertTrue(reader.findById(11).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not find an order whose archive file is missing")
+    void findById_missingFile() {
+        Mockito.when(repository.findCovering(12)).thenReturn(List.of(entry(directory.resolve("missing.ndjson.gz"))));
+
+        assertTrue(reader.findById(12).isEmpty());
+    }
+
+    private Path writeArchive(Integer... ids) throws IOException {
+        var file = directory.resolve("customer_order_p2025_01.ndjson.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            for (var id : ids) {
+                var order = new ArchivedOrder(
+                        id,
+                        "ORDER-" + id,
+                        BigDecimal.valueOf(100.0),
+                        PaymentMethod.CREDIT_CARD,
+                        "customer123",
+                        OrderStatus.CONFIRMED,
+                        null,
+                        CREATED,
+                        CREATED,
+                        List.of(new ArchivedOrderLine(id * 10, 7, 2), new ArchivedOrderLine(id * 10 + 1, 8, 1))
+                );
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private static OrderArchiveEntry entry(Path file) {
+        return OrderArchiveEntry.builder()
+                .partitionName("customer_order_p2025_01")
+                .file(file.toString())
+                .minOrderId(10)
+                .maxOrderId(15)
+                .orderCount(3)
+                .archivedAt(CREATED)
+                .build();
+    }
+}
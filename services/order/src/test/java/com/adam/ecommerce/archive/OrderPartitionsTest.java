@@ -0,0 +1,167 @@
+package com.adam.ecommerce.archive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the migrated schema, partition maintenance and archiving against a real database.
+ * Run with {@code ./mvnw test -Dtest=OrderPartitionsTest -Ddatabase=true} against a local database.
+ */
+@SpringBootTest(properties = {
+        "application.partitions.months-ahead=3",
+        "application.archive.enabled=false"
+})
+@EnabledIfSystemProperty(named = "database", matches = "true")
+class OrderPartitionsTest {
+
+    // far enough back to never hold real orders
+    private static final YearMonth ARCHIVED_MONTH = YearMonth.of(2001, 1);
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("application.archive.directory", archiveDirectory::toString);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private OrderArchiver archiver;
+    @Autowired
+    private OrderArchiveRepository archiveRepository;
+    @Autowired
+    private OrderArchiveReader archiveReader;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("delete from customer_order where reference like 'partitions-test-%'");
+        archiveRepository.deleteById("customer_order_" + OrderPartitions.suffix(ARCHIVED_MONTH));
+    }
+
+    @Test
+    void migratesToMonthlyPartitions() {
+        assertEquals("p", jdbcTemplate.queryForObject(
+                "select relkind::text from pg_class where relname = 'customer_order'", String.class));
+        assertEquals("p", jdbcTemplate.queryForObject(
+                "select relkind::text from pg_class where relname = 'order_line'", String.class));
+        for (int i = 0; i <= 3; i++) {
+            assertTrue(exists("customer_order_" + OrderPartitions.suffix(YearMonth.now().plusMonths(i))));
+            assertTrue(exists("order_line_" + OrderPartitions.suffix(YearMonth.now().plusMonths(i))));
+        }
+        assertFalse(exists("customer_order_unpartitioned"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from flyway_schema_history where not success", Integer.class));
+    }
+
+    @Test
+    void createsMonthWhoseRowsLandedInTheDefaultPartition() {
+        var month = YearMonth.now().plusMonths(4);
+        var suffix = OrderPartitions.suffix(month);
+        jdbcTemplate.execute("drop table if exists order_line_" + suffix);
+        jdbcTemplate.execute("drop table if exists customer_order_" + suffix);
+        var orderId = insertOrder(month.atDay(2).atStartOfDay());
+        assertEquals(1, countIn("customer_order_default", orderId));
+
+        new OrderPartitions(dataSource, transactionManager, archiver, 4, false, 12).maintain();
+
+        assertTrue(exists("customer_order_" + suffix));
+        assertEquals(1, countIn("customer_order_" + suffix, orderId));
+        assertEquals(1, countLinesIn("order_line_" + suffix, orderId));
+        assertEquals(0, countIn("customer_order_default", orderId));
+    }
+
+    @Test
+    void archivesMonthToFileAndReadsItBack() {
+        jdbcTemplate.queryForList("select create_order_partitions(?)", ARCHIVED_MONTH.atDay(1));
+        var orderId = insertOrder(ARCHIVED_MONTH.atDay(2).atStartOfDay());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> archiver.archive(ARCHIVED_MONTH));
+
+        var suffix = OrderPartitions.suffix(ARCHIVED_MONTH);
+        assertFalse(exists("customer_order_" + suffix));
+        assertFalse(exists("order_line_" + suffix));
+        var entry = archiveRepository.findById("customer_order_" + suffix).orElseThrow();
+        assertEquals(1, entry.getOrderCount());
+        assertTrue(Files.exists(Path.of(entry.getFile())));
+
+        var order = archiveReader.findById(orderId).orElseThrow();
+        assertEquals("partitions-test-" + orderId, order.getReference());
+        assertEquals(1, order.getOrderLines().size());
+    }
+
+    @Test
+    void refusesMonthWithUnfinishedOrders() {
+        jdbcTemplate.queryForList("select create_order_partitions(?)", ARCHIVED_MONTH.atDay(1));
+        insertOrder(ARCHIVED_MONTH.atDay(2).atStartOfDay());
+        var paidId = insertOrder(ARCHIVED_MONTH.atDay(3).atStartOfDay(), "PAID");
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> archiver.archive(ARCHIVED_MONTH)));
+
+        var suffix = OrderPartitions.suffix(ARCHIVED_MONTH);
+        assertTrue(exists("customer_order_" + suffix));
+        assertEquals(1, countIn("customer_order_" + suffix, paidId));
+        assertTrue(archiveRepository.findById("customer_order_" + suffix).isEmpty());
+    }
+
+    private Integer insertOrder(LocalDateTime createdDate) {
+        return insertOrder(createdDate, "CONFIRMED");
+    }
+
+    private Integer insertOrder(LocalDateTime createdDate, String status) {
+        var orderId = jdbcTemplate.queryForObject("select nextval('customer_order_seq')::integer", Integer.class);
+        jdbcTemplate.update("""
+                insert into customer_order (id, reference, total_amount, payment_method, customer_id, status, created_date)
+                values (?, ?, 10, 'PAYPAL', 'partitions-test', ?, ?)
+                """, orderId, "partitions-test-" + orderId, status, createdDate);
+        jdbcTemplate.update("""
+                insert into order_line (id, order_id, product_id, quantity, created_date)
+                values (nextval('order_line_seq'), ?, 1, 2, ?)
+                """, orderId, createdDate);
+        return orderId;
+    }
+
+    private boolean exists(String table) {
+        return jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, table);
+    }
+
+    private int countIn(String table, Integer orderId) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where id = ?", Integer.class, orderId);
+    }
+
+    private int countLinesIn(String table, Integer orderId) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where order_id = ?", Integer.class, orderId);
+    }
+}
@@ -0,0 +1,71 @@
+package com.adam.ecommerce.customer;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CustomerCacheTest {
+
+    private CustomerClient customerClient;
+    private CustomerCache customerCache;
+
+    @BeforeEach
+    void setup() {
+        customerClient = Mockito.mock(CustomerClient.class);
+        customerCache = new CustomerCache(
+                customerClient,
+                new SimpleMeterRegistry(),
+                100,
+                Duration.ofMinutes(10),
+                Duration.ofSeconds(30)
+        );
+    }
+
+    @Test
+    @DisplayName("Should ask the customer service once for a known customer")
+    void findCustomerById_found() {
+        var customer = new CustomerResponse("customer123", "John", "Doe", "john@example.com");
+        Mockito.when(customerClient.findCustomerById("customer123")).thenReturn(Optional.of(customer));
+
+        assertEquals(Optional.of(customer), customerCache.findCustomerById("customer123"));
+        assertEquals(Optional.of(customer), customerCache.findCustomerById("customer123"));
+
+        verify(customerClient, times(1)).findCustomerById("customer123");
+    }
+
+    @Test
+    @DisplayName("Should remember an unknown customer when the customer service answers 404")
+    void findCustomerById_notFound() {
+        Mockito.when(customerClient.findCustomerById("unknown"))
+                .thenThrow(Mockito.mock(FeignException.NotFound.class));
+
+        assertTrue(customerCache.findCustomerById("unknown").isEmpty());
+        assertTrue(customerCache.findCustomerById("unknown").isEmpty());
+
+        verify(customerClient, times(1)).findCustomerById("unknown");
+    }
+
+    @Test
+    @DisplayName("Should ask again after the customer changed")
+    void onCustomerEvent_evicts() {
+        Mockito.when(customerClient.findCustomerById("unknown"))
+                .thenThrow(Mockito.mock(FeignException.NotFound.class));
+
+        customerCache.findCustomerById("unknown");
+        customerCache.onCustomerEvent(new CustomerEvent("unknown", "CREATED"));
+        customerCache.findCustomerById("unknown");
+
+        verify(customerClient, times(2)).findCustomerById("unknown");
+    }
+}
@@ -1,5 +1,7 @@
 package com.adam.ecommerce.order;
 
+import com.adam.ecommerce.exception.DuplicateRequestException;
+import com.adam.ecommerce.exception.IdempotencyKeyReusedException;
 import com.adam.ecommerce.product.PurchaseRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
@@ -14,12 +16,18 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -42,7 +50,7 @@ class OrderControllerTest {
     @Test
     @DisplayName("Should create order and return order ID")
     void createOrder() throws Exception {
-        Mockito.when(orderService.createdOrder(any(OrderRequest.class))).thenReturn(1);
+        Mockito.when(orderService.createdOrder(any(OrderRequest.class), isNull())).thenReturn(1);
 
         OrderRequest request = new OrderRequest(
                 null,
@@ -60,15 +68,171 @@ class OrderControllerTest {
                 .andExpect(content().string("1"));
     }
 
+    @Test
+    @DisplayName("Should pass the idempotency key on")
+    void createOrder_IdempotencyKey() throws Exception {
+        Mockito.when(orderService.createdOrder(any(OrderRequest.class), eq("key-1"))).thenReturn(1);
+
+        OrderRequest request = new OrderRequest(
+                null,
+                "ORDER-001",
+                BigDecimal.valueOf(100.0),
+                PaymentMethod.CREDIT_CARD,
+                "customer123",
+                List.of(new PurchaseRequest(1, 2))
+        );
+
+        mockMvc.perform(post("/api/v1/orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"));
+    }
+
+    @Test
+    @DisplayName("Should answer conflict while the first request with the key is in progress")
+    void createOrder_DuplicateInProgress() throws Exception {
+        Mockito.when(orderService.createdOrder(any(OrderRequest.class), eq("key-1")))
+                .thenThrow(new DuplicateRequestException("A request with this Idempotency-Key is still in progress"));
+
+        OrderRequest request = new OrderRequest(
+                null,
+                "ORDER-001",
+                BigDecimal.valueOf(100.0),
+                PaymentMethod.CREDIT_CARD,
+                "customer123",
+                List.of(new PurchaseRequest(1, 2))
+        );
+
+        mockMvc.perform(post("/api/v1/orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Should answer unprocessable entity when the key was used with a different request")
+    void createOrder_IdempotencyKeyReused() throws Exception {
+        Mockito.when(orderService.createdOrder(any(OrderRequest.class), eq("key-1")))
+                .thenThrow(new IdempotencyKeyReusedException("This Idempotency-Key was already used with a different request"));
+
+        OrderRequest request = new OrderRequest(
+                null,
+                "ORDER-001",
+                BigDecimal.valueOf(100.0),
+                PaymentMethod.CREDIT_CARD,
+                "customer123",
+                List.of(new PurchaseRequest(1, 2))
+        );
+
+        mockMvc.perform(post("/api/v1/orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @DisplayName("Should return order with its lines and products")
+    void findDetailById() throws Exception {
+        OrderDetailResponse response = new OrderDetailResponse(
+                1,
+                "ORDER-001",
+                BigDecimal.valueOf(100.0),
+                PaymentMethod.CREDIT_CARD,
+                "customer123",
+                OrderStatus.CONFIRMED,
+                LocalDateTime.of(2026, 10, 1, 10, 0),
+                List.of(new OrderDetailLineResponse(7, 3, 2, "Keyboard", BigDecimal.valueOf(50.0)))
+        );
+
+        Mockito.when(orderService.findDetailById(1)).thenReturn(response);
+        mockMvc.perform(get("/api/v1/orders/1/details"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reference").value("ORDER-001"))
+                .andExpect(jsonPath("$.lines[0].productId").value(3))
+                .andExpect(jsonPath("$.lines[0].productName").value("Keyboard"));
+    }
+
+    @Test
+    @DisplayName("Should accept order and point to its status")
+    void submitOrder() throws Exception {
+        Mockito.when(orderService.submitOrder(any(OrderRequest.class), isNull())).thenReturn(1);
+
+        OrderRequest request = new OrderRequest(
+                null,
+                "ORDER-001",
+                BigDecimal.valueOf(100.0),
+                PaymentMethod.CREDIT_CARD,
+                "customer123",
+                List.of(new PurchaseRequest(1, 2))
+        );
+
+        mockMvc.perform(post("/api/v1/orders/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/v1/orders/1/status"))
+                .andExpect(content().string("1"));
+    }
+
+    @Test
+    @DisplayName("Should return order status")
+    void findStatus() throws Exception {
+        DeferredResult<OrderStatusResponse> status = new DeferredResult<>();
+        status.setResult(new OrderStatusResponse(1, OrderStatus.CONFIRMED, null));
+        Mockito.when(orderService.awaitStatus(eq(1), eq(Duration.ofSeconds(10)))).thenReturn(status);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/orders/1/status").param("wait", "PT10S"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.status").value("CONFIRMED"));
+    }
+
     @Test
     @DisplayName("Should return all orders")
     void findAll() throws Exception {
-        Mockito.when(orderService.findAll()).thenReturn(Collections.emptyList());
+        Mockito.when(orderService.findPage(null, 20, null, null, null))
+                .thenReturn(new OrderPage(Collections.emptyList(), null));
         mockMvc.perform(get("/api/v1/orders"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(content().json("[]"));
     }
 
+    @Test
+    @DisplayName("Should return a page of a customer's orders with the next cursor")
+    void findPage() throws Exception {
+        OrderResponse response = new OrderResponse(
+                41,
+                "ORDER-041",
+                BigDecimal.valueOf(100.0),
+                PaymentMethod.CREDIT_CARD,
+                "customer123"
+        );
+
+        Mockito.when(orderService.findPage(
+                        "2026-10-01T10:00_42",
+                        1,
+                        "customer123",
+                        LocalDateTime.of(2026, 9, 1, 0, 0),
+                        null))
+                .thenReturn(new OrderPage(List.of(response), "2026-09-30T08:00_41"));
+        mockMvc.perform(get("/api/v1/orders")
+                        .param("after", "2026-10-01T10:00_42")
+                        .param("size", "1")
+                        .param("customerId", "customer123")
+                        .param("from", "2026-09-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2026-09-30T08:00_41"))
+                .andExpect(jsonPath("$[0].id").value(41));
+    }
+
     @Test
     @DisplayName("Should return order by ID")
     void findById() throws Exception {
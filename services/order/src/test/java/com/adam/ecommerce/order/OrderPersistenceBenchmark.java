@@ -0,0 +1,70 @@
+package com.adam.ecommerce.order;
+
+import com.adam.ecommerce.product.PurchaseRequest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Prints commits, JDBC statements and latency per persisted order for orders of 1, 10 and 100 lines.
+ * Run with {@code ./mvnw test -Dtest=OrderPersistenceBenchmark -Dbenchmark=true} against a local database.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderPersistenceBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int ORDERS = 200;
+
+    @Autowired
+    private OrderWorkflow orderWorkflow;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void persistOrders() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (var lines : new int[]{1, 10, 100}) {
+            for (int i = 0; i < WARMUP; i++) {
+                orderWorkflow.saveOrder(order(lines), OrderStatus.CONFIRMED);
+            }
+            statistics.clear();
+            var start = System.nanoTime();
+            for (int i = 0; i < ORDERS; i++) {
+                orderWorkflow.saveOrder(order(lines), OrderStatus.CONFIRMED);
+            }
+            var averageMicros = (System.nanoTime() - start) / 1_000.0 / ORDERS;
+            System.out.printf("%d lines: %.2f commits, %.2f statements, %.0f us per order%n",
+                    lines,
+                    (double) statistics.getSuccessfulTransactionCount() / ORDERS,
+                    (double) statistics.getPrepareStatementCount() / ORDERS,
+                    averageMicros);
+        }
+        orderRepository.deleteAll(orderRepository.findAll()
+                .stream()
+                .filter(order -> order.getReference().startsWith("benchmark-"))
+                .toList());
+    }
+
+    private static OrderRequest order(int lines) {
+        return new OrderRequest(
+                null,
+                "benchmark-" + UUID.randomUUID(),
+                BigDecimal.TEN,
+                PaymentMethod.PAYPAL,
+                "benchmark-customer",
+                IntStream.rangeClosed(1, lines)
+                        .mapToObj(productId -> new PurchaseRequest(productId, 1))
+                        .toList()
+        );
+    }
+}
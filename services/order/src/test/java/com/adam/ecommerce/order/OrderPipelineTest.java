@@ -0,0 +1,103 @@
+package com.adam.ecommerce.order;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class OrderPipelineTest {
+
+    private OrderWorkflow workflow;
+    private OrderRepository repository;
+    private OrderStatusWatcher watcher;
+    private OrderPipeline pipeline;
+
+    @BeforeEach
+    void setup() {
+        workflow = Mockito.mock(OrderWorkflow.class);
+        repository = Mockito.mock(OrderRepository.class);
+        watcher = Mockito.mock(OrderStatusWatcher.class);
+        pipeline = new OrderPipeline(
+                workflow,
+                repository,
+                watcher,
+                new SimpleMeterRegistry(),
+                1,
+                1,
+                1,
+                10,
+                Duration.ofMinutes(15),
+                Duration.ofMinutes(1),
+                100
+        );
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should confirm a paid order whose confirmation did not go through")
+    void confirmPaidOrders_confirmed() {
+        paidOrder(7, "reservation-7");
+        Mockito.when(repository.updateStatus(7, OrderStatus.PAID, OrderStatus.CONFIRMED, null)).thenReturn(1);
+
+        pipeline.confirmPaidOrders();
+
+        verify(workflow).confirm("reservation-7");
+        verify(watcher).notify(new OrderStatusResponse(7, OrderStatus.CONFIRMED, null));
+    }
+
+    @Test
+    @DisplayName("Should keep a paid order for the next run when the product service is unavailable")
+    void confirmPaidOrders_unavailable() {
+        paidOrder(7, "reservation-7");
+        Mockito.doThrow(new ResourceAccessException("connection refused"))
+                .when(workflow).confirm("reservation-7");
+
+        pipeline.confirmPaidOrders();
+
+        verify(repository).updateStatus(7, OrderStatus.PAID, OrderStatus.PAID, "connection refused");
+        verify(repository, never()).updateStatus(eq(7), eq(OrderStatus.PAID), eq(OrderStatus.CONFIRMED), any());
+        verify(watcher, never()).notify(any());
+    }
+
+    @Test
+    @DisplayName("Should fail a paid order whose reservation is gone")
+    void confirmPaidOrders_reservationGone() {
+        paidOrder(7, "reservation-7");
+        Mockito.doThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null))
+                .when(workflow).confirm("reservation-7");
+        Mockito.when(repository.updateStatus(eq(7), eq(OrderStatus.PAID), eq(OrderStatus.FAILED), anyString()))
+                .thenReturn(1);
+
+        pipeline.confirmPaidOrders();
+
+        verify(watcher).notify(new OrderStatusResponse(7, OrderStatus.FAILED, "reservation expired before it was confirmed"));
+    }
+
+    private void paidOrder(Integer id, String reservationId) {
+        var order = Order.builder()
+                .id(id)
+                .status(OrderStatus.PAID)
+                .reservationId(reservationId)
+                .build();
+        Mockito.when(repository.findByStatusAndReservationIdNotNullAndLastModifiedDateBefore(
+                eq(OrderStatus.PAID), any(), any())).thenReturn(List.of(order));
+    }
+}
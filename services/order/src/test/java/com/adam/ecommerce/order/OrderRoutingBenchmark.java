@@ -0,0 +1,80 @@
+package com.adam.ecommerce.order;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints per-order latency of the downstream calls an order makes (customer lookup, stock
+ * reservation and its release), once straight through Eureka and once through the gateway.
+ * Run with {@code ./mvnw test -Dtest=OrderRoutingBenchmark -Dbenchmark=true -Dbenchmark.customer-id=<id>
+ * -Dbenchmark.gateway-token=<jwt>} while the services, Eureka and the gateway are up.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderRoutingBenchmark {
+
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+
+    @Autowired
+    private RestTemplate restTemplate;
+    @Autowired
+    @LoadBalanced
+    private RestTemplate loadBalancedRestTemplate;
+
+    @Test
+    void perOrderLatency() {
+        var customerId = System.getProperty("benchmark.customer-id");
+        var productId = Integer.getInteger("benchmark.product-id", 1);
+        var gatewayUrl = System.getProperty("benchmark.gateway-url", "http://localhost:8222");
+        var gatewayHeaders = new HttpHeaders();
+        gatewayHeaders.setContentType(MediaType.APPLICATION_JSON);
+        gatewayHeaders.setBearerAuth(System.getProperty("benchmark.gateway-token", ""));
+        var directHeaders = new HttpHeaders();
+        directHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        measure("eureka", loadBalancedRestTemplate, "http://customer-service", "http://product-service", directHeaders, customerId, productId);
+        measure("gateway", restTemplate, gatewayUrl, gatewayUrl, gatewayHeaders, customerId, productId);
+    }
+
+    private void measure(String route, RestTemplate client, String customerBase, String productBase, HttpHeaders headers, String customerId, int productId) {
+        var latencies = new long[ITERATIONS];
+        for (int i = -WARMUP; i < ITERATIONS; i++) {
+            var start = System.nanoTime();
+            client.exchange(customerBase + "/api/v1/customers/exists/" + customerId, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+            var reservation = client.exchange(
+                    productBase + "/api/v1/products/reservations",
+                    HttpMethod.POST,
+                    new HttpEntity<>(List.of(Map.of("productId", productId, "quantity", 1)), headers),
+                    new ParameterizedTypeReference<Map<String, Object>>() {}
+            ).getBody();
+            client.exchange(
+                    productBase + "/api/v1/products/reservations/" + reservation.get("reservationId"),
+                    HttpMethod.DELETE,
+                    new HttpEntity<>(headers),
+                    Void.class
+            );
+            if (i >= 0) {
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%s: p50 %.2f ms, p99 %.2f ms per order%n",
+                route,
+                latencies[ITERATIONS / 2] / 1_000_000.0,
+                latencies[ITERATIONS * 99 / 100] / 1_000_000.0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.adam.ecommerce.product;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ProductClientTest {
+
+    private MockRestServiceServer server;
+    private ProductClient productClient;
+
+    @BeforeEach
+    void setup() {
+        var restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        productClient = new ProductClient(restTemplate, new RestTemplate(), "http://gateway");
+    }
+
+    @Test
+    @DisplayName("Should fetch more products than one batch holds in several batches")
+    void findAllById_overBatchSize() {
+        var ids = IntStream.rangeClosed(1, 250).boxed().toList();
+        expectBatch(ids.subList(0, 100));
+        expectBatch(ids.subList(100, 200));
+        expectBatch(ids.subList(200, 250));
+
+        var products = productClient.findAllById(ids);
+
+        server.verify();
+        assertEquals(ids, products.stream().map(ProductResponse::id).toList());
+    }
+
+    @Test
+    @DisplayName("Should not call the product service without ids")
+    void findAllById_empty() {
+        assertEquals(List.of(), productClient.findAllById(List.of()));
+
+        server.verify();
+    }
+
+    private void expectBatch(List<Integer> ids) {
+        server.expect(requestTo("http://gateway/api/v1/products/batch"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().json(ids.toString()))
+                .andRespond(withSuccess(ids.stream()
+                        .map(id -> "{\"id\":" + id + ",\"name\":\"Product " + id + "\"}")
+                        .collect(Collectors.joining(",", "[", "]")), MediaType.APPLICATION_JSON));
+    }
+}
@@ -26,6 +26,8 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     private PaymentMethod paymentMethod;
     private Integer orderId;
+    @Column(unique = true)
+    private String idempotencyKey;
 
     @CreatedDate
     @Column(updatable = false, nullable = false)
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,9 +20,10 @@ public class PaymentController {
 
     @PostMapping
     public ResponseEntity<Integer>  createPayment(
-            @RequestBody @Valid PaymentRequest request
+            @RequestBody @Valid PaymentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ){
-        return ResponseEntity.ok(service.createPayment(request));
+        return ResponseEntity.ok(service.createPayment(request, idempotencyKey));
 
     }
 
@@ -2,5 +2,9 @@ package com.adam.ecommerce.payment;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
+
+    Optional<Payment> findByIdempotencyKey(String idempotencyKey);
 }
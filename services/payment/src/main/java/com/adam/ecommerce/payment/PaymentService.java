@@ -14,8 +14,20 @@ public class PaymentService {
     private final PaymentMapper mapper;
     private final NotificationProducer notificationProducer;
 
-    public Integer createPayment(@Valid PaymentRequest request) {
-        var payment = repository.save(mapper.toPayment(request));
+    /**
+     * Takes the payment once per {@code idempotencyKey}: a retry with the same key gets the first payment's id back
+     * and sends no second notification.
+     */
+    public Integer createPayment(@Valid PaymentRequest request, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            var existing = repository.findByIdempotencyKey(idempotencyKey);
+            if (existing.isPresent()) {
+                return existing.get().getId();
+            }
+        }
+        var payment = mapper.toPayment(request);
+        payment.setIdempotencyKey(idempotencyKey);
+        payment = repository.save(payment);
 
         notificationProducer.sendNotification(
                 new PaymentNotificationRequest(
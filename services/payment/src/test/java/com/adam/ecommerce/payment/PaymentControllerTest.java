@@ -12,6 +12,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -47,7 +49,7 @@ class PaymentControllerTest {
                     "john@example.com"// email
                 )
         );
-        Mockito.when(paymentService.createPayment(any(PaymentRequest.class))).thenReturn(1);
+        Mockito.when(paymentService.createPayment(any(PaymentRequest.class), isNull())).thenReturn(1);
 
         mockMvc.perform(post("/api/v1/payments")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -56,6 +58,32 @@ class PaymentControllerTest {
                 .andExpect(content().string("1"));
     }
 
+    @Test
+    @DisplayName("Should pass the idempotency key on to the service")
+    void createPayment_idempotencyKey() throws Exception {
+        PaymentRequest request = new PaymentRequest(
+                1,
+                new java.math.BigDecimal("100.00"),
+                PaymentMethod.CREDIT_CARD,
+                2,
+                "Test payment",
+                new Customer(
+                        "1",
+                        "John",
+                        "Doe",
+                        "john@example.com"
+                )
+        );
+        Mockito.when(paymentService.createPayment(any(PaymentRequest.class), eq("order-2"))).thenReturn(1);
+
+        mockMvc.perform(post("/api/v1/payments")
+                .header("Idempotency-Key", "order-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"));
+    }
+
     @Test
     @DisplayName("Should return 400 Bad Request for invalid payment request")
     void createPayment_invalidRequest() throws Exception {
@@ -96,7 +124,7 @@ class PaymentControllerTest {
                     "john@example.com"// email
                 )
         );
-        Mockito.when(paymentService.createPayment(any(PaymentRequest.class)))
+        Mockito.when(paymentService.createPayment(any(PaymentRequest.class), isNull()))
                 .thenThrow(new RuntimeException("Service error"));
 
         mockMvc.perform(post("/api/v1/payments")
@@ -0,0 +1,32 @@
+package com.adam.ecommerce.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaProductTopicConfig {
+
+    public static final String PRODUCT_TOPIC = "product-topic";
+    public static final String LOW_STOCK_TOPIC = "low-stock-topic";
+
+    // keyed by product id: compaction keeps the latest state of every product
+    @Bean
+    public NewTopic productTopic() {
+        return TopicBuilder
+                .name(PRODUCT_TOPIC)
+                .compact()
+                .build();
+    }
+
+    // keyed by product id: compaction keeps whether every product is currently low
+    @Bean
+    public NewTopic lowStockTopic() {
+        return TopicBuilder
+                .name(LOW_STOCK_TOPIC)
+                .compact()
+                .build();
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.adam.ecommerce.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class ProductCacheConfig {
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_CATALOG = "product-catalog";
+
+    // evictions issued inside a transaction are applied after it commits
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${application.cache.products.maximum-size:10000}") long productsMaximumSize,
+            @Value("${application.cache.products.expire-after-write:PT10M}") Duration productsExpireAfterWrite,
+            @Value("${application.cache.product-catalog.maximum-size:1000}") long catalogMaximumSize,
+            @Value("${application.cache.product-catalog.expire-after-write:PT1M}") Duration catalogExpireAfterWrite
+    ) {
+        var cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(PRODUCTS, Caffeine.newBuilder()
+                .maximumSize(productsMaximumSize)
+                .expireAfterWrite(productsExpireAfterWrite)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(PRODUCT_CATALOG, Caffeine.newBuilder()
+                .maximumSize(catalogMaximumSize)
+                .expireAfterWrite(catalogExpireAfterWrite)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -1,7 +1,22 @@
 package com.adam.ecommerce.exception;
 
+import java.util.Collection;
+import java.util.List;
+
 public class ProductPurchaseException extends Throwable {
+
+    private final List<Integer> productIds;
+
     public ProductPurchaseException(String s) {
+        this(s, List.of());
+    }
+
+    public ProductPurchaseException(String s, Collection<Integer> productIds) {
         super(s);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Integer> getProductIds() {
+        return productIds;
     }
 }
@@ -0,0 +1,13 @@
+package com.adam.ecommerce.kafka;
+
+import java.time.LocalDateTime;
+
+public record LowStockEvent(
+        LowStockState state,
+        Integer productId,
+        Integer categoryId,
+        double availableQuantity,
+        double threshold,
+        LocalDateTime occurredAt
+) {
+}
@@ -0,0 +1,44 @@
+package com.adam.ecommerce.kafka;
+
+import com.adam.ecommerce.product.ProductResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The full state of a product after a change. Stock events carry the whole snapshot too, so the
+ * latest record per key on the compacted topic is always enough to rebuild a product.
+ * <p>
+ * Outbox ids are not handed out in commit order, so events of one product can leave out of order.
+ * {@code version} is the product row version the change wrote; the row stays locked until commit,
+ * so consumers keep the highest version per product and drop older ones. Stock changes of products
+ * sharded into buckets do not write the product row and repeat its version.
+ */
+public record ProductEvent(
+        ProductEventType type,
+        Integer productId,
+        long version,
+        String name,
+        String description,
+        double availableQuantity,
+        BigDecimal price,
+        Integer categoryId,
+        String categoryName,
+        LocalDateTime occurredAt
+) {
+
+    public static ProductEvent of(ProductEventType type, ProductResponse product, long version, LocalDateTime occurredAt) {
+        return new ProductEvent(
+                type,
+                product.id(),
+                version,
+                product.name(),
+                product.description(),
+                product.available_quantity(),
+                product.price(),
+                product.categoryId(),
+                product.categoryName(),
+                occurredAt
+        );
+    }
+}
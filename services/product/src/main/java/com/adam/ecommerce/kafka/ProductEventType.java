@@ -0,0 +1,6 @@
+package com.adam.ecommerce.kafka;
+
+public enum ProductEventType {
+    UPSERT,
+    STOCK
+}
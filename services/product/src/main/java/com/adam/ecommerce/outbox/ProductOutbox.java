@@ -0,0 +1,79 @@
+package com.adam.ecommerce.outbox;
+
+import com.adam.ecommerce.kafka.LowStockEvent;
+import com.adam.ecommerce.kafka.ProductEvent;
+import com.adam.ecommerce.kafka.ProductEventType;
+import com.adam.ecommerce.product.ProductRepository;
+import com.adam.ecommerce.product.ProductStockChangedEvent;
+import com.adam.ecommerce.product.ProductVersion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import static com.adam.ecommerce.config.KafkaProductTopicConfig.LOW_STOCK_TOPIC;
+import static com.adam.ecommerce.config.KafkaProductTopicConfig.PRODUCT_TOPIC;
+
+/**
+ * Writes product events in the transaction that changed the products, so an event exists if and
+ * only if its change committed. {@link ProductOutboxRelay} ships them to Kafka afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductOutbox {
+
+    private final ProductOutboxRepository repository;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void onStockChanged(ProductStockChangedEvent event) {
+        record(ProductEventType.STOCK, event.productIds());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ProductEventType type, Collection<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        var now = LocalDateTime.now();
+        var versions = productRepository.findVersionsByIdIn(productIds)
+                .stream()
+                .collect(Collectors.toMap(ProductVersion::getId, ProductVersion::getVersion));
+        var events = productRepository.findAllResponsesByIdIn(productIds)
+                .stream()
+                .map(product -> ProductOutboxEvent.builder()
+                        .topic(PRODUCT_TOPIC)
+                        .productId(product.id())
+                        .payload(toJson(ProductEvent.of(type, product, versions.get(product.id()), now), product.id()))
+                        .createdAt(now)
+                        .build())
+                .toList();
+        repository.saveAll(events);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(LowStockEvent event) {
+        repository.save(ProductOutboxEvent.builder()
+                .topic(LOW_STOCK_TOPIC)
+                .productId(event.productId())
+                .payload(toJson(event, event.productId()))
+                .createdAt(event.occurredAt())
+                .build());
+    }
+
+    private String toJson(Object event, Integer productId) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize event for product " + productId, e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.adam.ecommerce.outbox;
+
+import com.adam.ecommerce.kafka.LowStockEvent;
+import com.adam.ecommerce.kafka.ProductEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.adam.ecommerce.config.KafkaProductTopicConfig.LOW_STOCK_TOPIC;
+import static com.adam.ecommerce.config.KafkaProductTopicConfig.PRODUCT_TOPIC;
+
+/**
+ * Sends outbox rows to Kafka in id order and deletes them once the broker acknowledged the whole
+ * batch. A failed batch stays in the table and is sent again, so delivery is at least once.
+ */
+@Component
+@Slf4j
+public class ProductOutboxRelay {
+
+    private static final Map<String, Class<?>> PAYLOAD_TYPES = Map.of(
+            PRODUCT_TOPIC, ProductEvent.class,
+            LOW_STOCK_TOPIC, LowStockEvent.class
+    );
+
+    private final ProductOutboxRepository repository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+
+    public ProductOutboxRelay(
+            ProductOutboxRepository repository,
+            KafkaTemplate<String, Object> kafkaTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.outbox.batch-size:500}") int batchSize,
+            @Value("${application.outbox.send-timeout:PT10S}") Duration sendTimeout
+    ) {
+        this.repository = repository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.relay-delay:PT0.5S}")
+    public void relay() {
+        try {
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } while (sent != null && sent == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Could not relay product events, they will be sent again", e);
+        }
+    }
+
+    private int relayBatch() {
+        if (!repository.tryLockRelay()) {
+            return 0;
+        }
+        var events = repository.findBatch(batchSize);
+        var sends = events
+                .stream()
+                .map(event -> kafkaTemplate.send(event.getTopic(), String.valueOf(event.getProductId()), read(event)))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(sends).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relaying product events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Kafka did not acknowledge product events", e);
+        }
+        repository.deleteAllInBatch(events);
+        return events.size();
+    }
+
+    private Object read(ProductOutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), PAYLOAD_TYPES.get(event.getTopic()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable product event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.adam.ecommerce.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ProductOutboxRepository extends JpaRepository<ProductOutboxEvent, Long> {
+
+    /**
+     * Only one relay may hold this lock at a time, so events leave in the order they were written.
+     * It is released when the transaction ends.
+     */
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('product_outbox_relay'))", nativeQuery = true)
+    boolean tryLockRelay();
+
+    @Query(value = """
+            select *
+            from product_outbox
+            order by id
+            limit :limit
+            """, nativeQuery = true)
+    List<ProductOutboxEvent> findBatch(@Param("limit") int limit);
+}
@@ -21,7 +21,13 @@ public class Product {
     private String description;
     private double available_quantity;
     private BigDecimal price;
-    @ManyToOne
+    private int stockBuckets;
+    @Version
+    private long version;
+    // only written by ProductRepository#updateLowStock
+    @Column(insertable = false, updatable = false)
+    private boolean lowStock;
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -0,0 +1,28 @@
+package com.adam.ecommerce.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import static com.adam.ecommerce.config.ProductCacheConfig.PRODUCTS;
+import static com.adam.ecommerce.config.ProductCacheConfig.PRODUCT_CATALOG;
+
+@Component
+@RequiredArgsConstructor
+public class ProductCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @EventListener
+    public void onStockChanged(ProductStockChangedEvent event) {
+        var products = cacheManager.getCache(PRODUCTS);
+        if (products != null) {
+            event.productIds().forEach(products::evict);
+        }
+        var catalog = cacheManager.getCache(PRODUCT_CATALOG);
+        if (catalog != null) {
+            catalog.clear();
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package com.adam.ecommerce.product;
 
 import com.adam.ecommerce.exception.ProductPurchaseException;
+import com.adam.ecommerce.stock.StockBucketsRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -22,6 +31,20 @@ public class ProductController {
         return ResponseEntity.ok(service.createProduct(request));
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ProductImportResponse> importProducts(
+            InputStream body
+    ) throws IOException {
+        return ResponseEntity.ok(service.importProducts(body));
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ProductImportResponse> importProductsCsv(
+            InputStream body
+    ) throws IOException {
+        return ResponseEntity.ok(service.importProductsCsv(body));
+    }
+
     @PostMapping("/purchase")
     public ResponseEntity<List<ProductPurchaseResponse>> purchaseProducts(
             @RequestBody @Valid List<ProductPurchaseRequest> request
@@ -30,6 +53,25 @@ public class ProductController {
 
     }
 
+    @PutMapping("/{product-id}/stock-buckets")
+    public ResponseEntity<Void> shardStock(
+            @PathVariable("product-id") Integer productId,
+            @RequestBody @Valid StockBucketsRequest request
+    ){
+        service.shardStock(productId, request.buckets());
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductResponse>> findAllById(
+            @RequestBody Set<Integer> productIds
+    ){
+        if (productIds.size() > ProductService.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.findAllById(productIds));
+    }
+
     @GetMapping("/{product-id}")
     public ResponseEntity<ProductResponse> findById (
             @PathVariable("product-id") Integer productId
@@ -37,6 +79,47 @@ public class ProductController {
         return ResponseEntity.ok(service.findById(productId));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ProductPage> findPage(
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "categoryId", required = false) Integer categoryId,
+            @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice
+    ){
+        return ResponseEntity.ok(service.findPage(after, size, categoryId, minPrice, maxPrice));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ){
+        return ResponseEntity.ok(service.search(query, page, size));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ){
+        var gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (var gzipStream = new GZIPOutputStream(outputStream, 64 * 1024)) {
+                    service.exportProducts(gzipStream);
+                }
+            } else {
+                service.exportProducts(outputStream);
+            }
+        };
+        var response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping
     public ResponseEntity<List<ProductResponse>> findAll(){
         return ResponseEntity.ok(service.findAll());
@@ -0,0 +1,7 @@
+package com.adam.ecommerce.product;
+
+public record ProductImportError(
+        long row,
+        String message
+) {
+}
@@ -0,0 +1,10 @@
+package com.adam.ecommerce.product;
+
+import java.util.List;
+
+public record ProductImportResponse(
+        long imported,
+        long failed,
+        List<ProductImportError> errors
+) {
+}
@@ -0,0 +1,189 @@
+package com.adam.ecommerce.product;
+
+import com.adam.ecommerce.category.Category;
+import com.adam.ecommerce.kafka.ProductEventType;
+import com.adam.ecommerce.outbox.ProductOutbox;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.adam.ecommerce.config.ProductCacheConfig.PRODUCT_CATALOG;
+
+/**
+ * Streams product rows from the request body and inserts the valid ones in JDBC batches.
+ * Invalid rows are reported by row number; they never abort the rest of the load.
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductMapper mapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductOutbox outbox;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ProductMapper mapper,
+            Validator validator,
+            ObjectMapper objectMapper,
+            ProductOutbox outbox,
+            @Value("${application.import.batch-size:500}") int batchSize,
+            @Value("${application.import.max-reported-errors:1000}") int maxReportedErrors
+    ) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mapper = mapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.outbox = outbox;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Accepts a JSON array or newline-delimited JSON objects.
+     */
+    @CacheEvict(cacheNames = PRODUCT_CATALOG, allEntries = true)
+    public ProductImportResponse importJson(InputStream body) throws IOException {
+        try (var rows = objectMapper.readerFor(JsonNode.class).<JsonNode>readValues(body)) {
+            return importRows(rows);
+        }
+    }
+
+    /**
+     * Accepts CSV with a header line naming the {@link ProductRequest} fields.
+     */
+    @CacheEvict(cacheNames = PRODUCT_CATALOG, allEntries = true)
+    public ProductImportResponse importCsv(InputStream body) throws IOException {
+        var schema = CsvSchema.emptySchema().withHeader();
+        try (var rows = csvMapper.readerForMapOf(String.class).with(schema).<Map<String, String>>readValues(body)) {
+            return importRows(rows);
+        }
+    }
+
+    private ProductImportResponse importRows(Iterator<?> rows) {
+        var categoryIds = new HashSet<>(entityManager
+                .createQuery("select c.id from Category c", Integer.class)
+                .getResultList());
+        var report = new Report();
+        var batch = new ArrayList<Row>(batchSize);
+        long rowNumber = 0;
+        while (true) {
+            Object row;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                row = rows.next();
+            } catch (RuntimeException e) {
+                // the input itself is malformed, nothing after this point can be trusted
+                report.fail(rowNumber + 1, "Malformed input: " + e.getMessage());
+                break;
+            }
+            rowNumber++;
+            var request = toRequest(rowNumber, row, categoryIds, report);
+            if (request != null) {
+                batch.add(new Row(rowNumber, request));
+            }
+            if (batch.size() == batchSize) {
+                insert(batch, report);
+            }
+        }
+        insert(batch, report);
+        return new ProductImportResponse(report.imported, report.failed, report.errors);
+    }
+
+    private ProductRequest toRequest(long rowNumber, Object row, Set<Integer> categoryIds, Report report) {
+        ProductRequest request;
+        try {
+            request = objectMapper.convertValue(row, ProductRequest.class);
+        } catch (IllegalArgumentException e) {
+            report.fail(rowNumber, "Unreadable row: " + e.getMessage());
+            return null;
+        }
+        var violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            report.fail(rowNumber, violations
+                    .stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        if (!categoryIds.contains(request.categoryId())) {
+            report.fail(rowNumber, "Category not found with the ID:: " + request.categoryId());
+            return null;
+        }
+        return request;
+    }
+
+    private void insert(List<Row> batch, Report report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                var productIds = new ArrayList<Integer>(batch.size());
+                for (var row : batch) {
+                    var product = mapper.toProduct(row.request());
+                    // ids always come from the pooled product_seq allocation
+                    product.setId(null);
+                    product.setCategory(entityManager.getReference(Category.class, row.request().categoryId()));
+                    entityManager.persist(product);
+                    productIds.add(product.getId());
+                }
+                entityManager.flush();
+                outbox.record(ProductEventType.UPSERT, productIds);
+                entityManager.clear();
+            });
+            report.imported += batch.size();
+        } catch (RuntimeException e) {
+            log.warn("Could not import rows {} to {}", batch.get(0).number(), batch.get(batch.size() - 1).number(), e);
+            batch.forEach(row -> report.fail(row.number(), "Batch insert failed: " + e.getMessage()));
+        }
+        batch.clear();
+    }
+
+    private record Row(long number, ProductRequest request) {
+    }
+
+    private class Report {
+        private long imported;
+        private long failed;
+        private final List<ProductImportError> errors = new ArrayList<>();
+
+        private void fail(long rowNumber, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportError(rowNumber, message));
+            }
+        }
+    }
+}
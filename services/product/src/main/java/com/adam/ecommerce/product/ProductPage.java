@@ -0,0 +1,9 @@
+package com.adam.ecommerce.product;
+
+import java.util.List;
+
+public record ProductPage(
+        List<ProductResponse> products,
+        Integer nextCursor
+) {
+}
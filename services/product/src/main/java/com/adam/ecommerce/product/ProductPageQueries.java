@@ -0,0 +1,21 @@
+package com.adam.ecommerce.product;
+
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ProductPageQueries {
+
+    /**
+     * Seeks past {@code after} on the primary key. Only the filters that are set become predicates,
+     * so the planner can pick the matching index instead of a plan that fits every combination.
+     */
+    List<ProductResponse> findPage(
+            Integer after,
+            Integer categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Limit limit
+    );
+}
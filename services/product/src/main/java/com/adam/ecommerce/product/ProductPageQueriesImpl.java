@@ -0,0 +1,67 @@
+package com.adam.ecommerce.product;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@RequiredArgsConstructor
+class ProductPageQueriesImpl implements ProductPageQueries {
+
+    private static final String SELECT_PAGE = """
+            select new com.adam.ecommerce.product.ProductResponse(
+                p.id,
+                p.name,
+                p.description,
+                coalesce((select sum(b.availableQuantity) from ProductStockBucket b where b.productId = p.id), p.available_quantity),
+                p.price,
+                c.id,
+                c.name,
+                c.description
+            )
+            from Product p
+            join p.category c
+            where p.id > :after
+            """;
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<ProductResponse> findPage(
+            Integer after,
+            Integer categoryId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Limit limit
+    ) {
+        var jpql = new StringBuilder(SELECT_PAGE);
+        if (categoryId != null) {
+            jpql.append(" and c.id = :categoryId");
+        }
+        if (minPrice != null) {
+            jpql.append(" and p.price >= :minPrice");
+        }
+        if (maxPrice != null) {
+            jpql.append(" and p.price <= :maxPrice");
+        }
+        jpql.append(" order by p.id");
+
+        var query = entityManager.createQuery(jpql.toString(), ProductResponse.class)
+                .setParameter("after", after);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        if (minPrice != null) {
+            query.setParameter("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            query.setParameter("maxPrice", maxPrice);
+        }
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,181 @@
+package com.adam.ecommerce.product;
+
+import com.adam.ecommerce.exception.ProductPurchaseException;
+import com.adam.ecommerce.stock.LowStockDetector;
+import com.adam.ecommerce.stock.ProductStockBucketRepository;
+import com.adam.ecommerce.stock.ProductStockBucketService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ProductPurchaseEngine {
+
+    private final ProductRepository repository;
+    private final ProductMapper mapper;
+    private final ProductStockBucketService stockBucketService;
+    private final ProductStockBucketRepository stockBucketRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LowStockDetector lowStockDetector;
+
+    @Transactional(rollbackFor = ProductPurchaseException.class)
+    public List<ProductPurchaseResponse> purchase(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
+        var quantities = sumQuantities(request);
+        var productIds = List.copyOf(quantities.keySet());
+        var storedProducts = load(productIds);
+
+        var plainIds = new ArrayList<Integer>();
+        var failedIds = decrementSharded(storedProducts, quantities, plainIds);
+        var stockLevels = new ArrayList<StockLevel>();
+        if (!plainIds.isEmpty()) {
+            stockLevels.addAll(repository.decrementAvailableQuantities(
+                    plainIds.toArray(Integer[]::new),
+                    plainIds.stream().map(quantities::get).toArray(Double[]::new)
+            ));
+            failedIds.addAll(missing(plainIds, stockLevels.stream().map(StockLevel::getId).toList()));
+        }
+        return complete(request, productIds, storedProducts, failedIds, stockLevels);
+    }
+
+    /**
+     * Decrements plain products on the loaded entities and lets the version check at flush detect
+     * concurrent writers. A conflict surfaces as {@link ObjectOptimisticLockingFailureException}
+     * and rolls the whole purchase back, so the caller can simply run it again.
+     */
+    @Transactional(rollbackFor = ProductPurchaseException.class)
+    public List<ProductPurchaseResponse> purchaseOptimistically(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
+        var quantities = sumQuantities(request);
+        var productIds = List.copyOf(quantities.keySet());
+        var storedProducts = load(productIds);
+
+        var plainIds = new ArrayList<Integer>();
+        var failedIds = decrementSharded(storedProducts, quantities, plainIds);
+        var stockLevels = new ArrayList<StockLevel>();
+        for (var product : storedProducts) {
+            if (!plainIds.contains(product.getId())) {
+                continue;
+            }
+            var quantity = quantities.get(product.getId());
+            if (product.getAvailable_quantity() < quantity) {
+                failedIds.add(product.getId());
+            } else {
+                product.setAvailable_quantity(product.getAvailable_quantity() - quantity);
+                stockLevels.add(StockLevel.of(product));
+            }
+        }
+        if (failedIds.isEmpty()) {
+            repository.flush();
+        }
+        return complete(request, productIds, storedProducts, failedIds, stockLevels);
+    }
+
+    /**
+     * Gives stock back, e.g. for released reservations. Sharded products get it on their first bucket.
+     */
+    @Transactional
+    public void restock(Map<Integer, Double> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        var ids = quantities.keySet().toArray(Integer[]::new);
+        var values = quantities.values().toArray(Double[]::new);
+        var stockLevels = new ArrayList<StockLevel>(repository.incrementAvailableQuantities(ids, values));
+        if (stockBucketRepository.incrementFirstBuckets(ids, values) > 0) {
+            var plainIds = stockLevels.stream().map(StockLevel::getId).toList();
+            var shardedIds = missing(List.of(ids), plainIds);
+            repository.incrementShardedVersions(shardedIds);
+            stockLevels.addAll(stockBucketRepository.sumAvailableQuantities(shardedIds));
+        }
+        lowStockDetector.check(stockLevels);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(quantities.keySet()));
+    }
+
+    private static TreeMap<Integer, Double> sumQuantities(List<ProductPurchaseRequest> request) {
+        // the same product may appear on several lines, it is decremented once with the summed quantity
+        return request
+                .stream()
+                .collect(Collectors.toMap(
+                        ProductPurchaseRequest::productId,
+                        ProductPurchaseRequest::quantity,
+                        Double::sum,
+                        TreeMap::new
+                ));
+    }
+
+    private List<Product> load(List<Integer> productIds) throws ProductPurchaseException {
+        var storedProducts = repository.findAllByIdInOrderById(productIds);
+        if (productIds.size() != storedProducts.size()) {
+            var missingIds = missing(productIds, storedProducts.stream().map(Product::getId).toList());
+            throw new ProductPurchaseException("One or more products does not exists:: " + missingIds, missingIds);
+        }
+        return storedProducts;
+    }
+
+    /**
+     * Takes sharded products from their buckets and collects the ids of plain ones into {@code plainIds}.
+     * Returns the ids of sharded products that could not be served.
+     */
+    private List<Integer> decrementSharded(List<Product> storedProducts, Map<Integer, Double> quantities, List<Integer> plainIds) {
+        var failedIds = new ArrayList<Integer>();
+        for (var product : storedProducts) {
+            if (product.getStockBuckets() == 0) {
+                plainIds.add(product.getId());
+            } else if (!stockBucketService.decrement(product.getId(), quantities.get(product.getId()), product.getStockBuckets())) {
+                failedIds.add(product.getId());
+            }
+        }
+        return failedIds;
+    }
+
+    private List<ProductPurchaseResponse> complete(
+            List<ProductPurchaseRequest> request,
+            List<Integer> productIds,
+            List<Product> storedProducts,
+            List<Integer> failedIds,
+            List<StockLevel> stockLevels
+    ) throws ProductPurchaseException {
+        if (!failedIds.isEmpty()) {
+            failedIds.sort(Comparator.naturalOrder());
+            throw new ProductPurchaseException("Not enough quantity of products with ids:: " + failedIds, failedIds);
+        }
+        var shardedIds = storedProducts
+                .stream()
+                .filter(product -> product.getStockBuckets() > 0)
+                .map(Product::getId)
+                .toList();
+        if (!shardedIds.isEmpty()) {
+            // summed once the version bump holds the row, not while other bucket writes may still commit
+            repository.incrementShardedVersions(shardedIds);
+            stockLevels.addAll(stockBucketRepository.sumAvailableQuantities(shardedIds));
+        }
+        lowStockDetector.check(stockLevels);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(productIds));
+
+        var products = storedProducts
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return request
+                .stream()
+                .sorted(Comparator.comparing(ProductPurchaseRequest::productId))
+                .map(line -> mapper.toProductPurchaseResponse(products.get(line.productId()), line.quantity()))
+                .toList();
+    }
+
+    private static List<Integer> missing(List<Integer> expectedIds, List<Integer> actualIds) {
+        return expectedIds
+                .stream()
+                .filter(id -> !actualIds.contains(id))
+                .toList();
+    }
+}
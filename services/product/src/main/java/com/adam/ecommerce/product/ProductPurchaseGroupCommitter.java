@@ -0,0 +1,285 @@
+package com.adam.ecommerce.product;
+
+import com.adam.ecommerce.exception.ProductPurchaseException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces purchases arriving at the same time into one database transaction. Every purchase runs
+ * in its own savepoint, so a purchase that fails is rolled back alone and the others still commit.
+ * Callers are only answered once the shared transaction has committed.
+ */
+@Component
+@Slf4j
+public class ProductPurchaseGroupCommitter {
+
+    /**
+     * Work that takes stock; it runs inside the batch transaction, in its own savepoint.
+     */
+    @FunctionalInterface
+    public interface PurchaseWork<T> {
+        T run() throws ProductPurchaseException;
+    }
+
+    private record PendingPurchase<T>(
+            PurchaseWork<T> work,
+            CompletableFuture<T> result,
+            long enqueuedAt,
+            AtomicBoolean claimed
+    ) {
+        /**
+         * Taken by whoever settles the purchase first: the batch running it, or the caller or shutdown giving up on it.
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private record Outcome<T>(T value, Throwable failure) {
+    }
+
+    private final ProductPurchaseEngine purchaseEngine;
+    private final TransactionTemplate batchTransaction;
+    private final TransactionTemplate purchaseTransaction;
+    private final BlockingQueue<PendingPurchase<?>> queue;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final Duration resultTimeout;
+    private final DistributionSummary batchSize;
+    private final Timer waitTime;
+    private volatile boolean running;
+    private Thread worker;
+
+    public ProductPurchaseGroupCommitter(
+            ProductPurchaseEngine purchaseEngine,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${application.purchase.mode:set-based}") String mode,
+            @Value("${application.purchase.group-commit.enabled:false}") boolean enabled,
+            @Value("${application.purchase.group-commit.max-batch-size:64}") int maxBatchSize,
+            @Value("${application.purchase.group-commit.max-wait:PT0.002S}") Duration maxWait,
+            @Value("${application.purchase.group-commit.queue-capacity:10000}") int queueCapacity,
+            @Value("${application.purchase.group-commit.result-timeout:PT5S}") Duration resultTimeout
+    ) {
+        if (enabled && "optimistic".equalsIgnoreCase(mode)) {
+            // batched purchases always run set-based, they would silently bypass the optimistic mode
+            throw new IllegalStateException(
+                    "application.purchase.group-commit.enabled requires application.purchase.mode=set-based");
+        }
+        this.purchaseEngine = purchaseEngine;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.purchaseTransaction = new TransactionTemplate(transactionManager);
+        this.purchaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.resultTimeout = resultTimeout;
+        this.batchSize = DistributionSummary.builder("product.purchase.batch.size")
+                .description("Purchases committed together in one transaction")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("product.purchase.batch.wait")
+                .description("Time a purchase waited before its batch started")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<ProductPurchaseResponse> purchase(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
+        return execute(() -> purchaseEngine.purchase(request));
+    }
+
+    /**
+     * Runs the work in the next batch, or alone in its own transaction when group commit is disabled or saturated.
+     * A purchase no batch picked up within the result timeout is withdrawn and fails without taking stock.
+     */
+    public <T> T execute(PurchaseWork<T> work) throws ProductPurchaseException {
+        var pending = new PendingPurchase<>(work, new CompletableFuture<T>(), System.nanoTime(), new AtomicBoolean());
+        if (!running || !queue.offer(pending)) {
+            // saturated: do not queue behind the backlog, run on the caller thread instead
+            return executeAlone(work);
+        }
+        if (!running) {
+            // stopped while offering, the worker may already be gone
+            failQueued();
+        }
+        try {
+            return awaitResult(pending);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ProductPurchaseException purchaseException) {
+                throw purchaseException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the purchase batch", e);
+        }
+    }
+
+    private <T> T awaitResult(PendingPurchase<T> pending) throws ExecutionException, InterruptedException {
+        try {
+            return pending.result().get(resultTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (pending.claim()) {
+                throw new IllegalStateException("Purchase was not picked up by a batch within " + resultTimeout);
+            }
+        }
+        // a batch is running it: its outcome is only unknown if that batch outlives a second timeout
+        try {
+            return pending.result().get(resultTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Purchase batch did not finish within " + resultTimeout.multipliedBy(2));
+        }
+    }
+
+    private <T> T executeAlone(PurchaseWork<T> work) throws ProductPurchaseException {
+        var outcome = batchTransaction.execute(status -> {
+            try {
+                return new Outcome<>(work.run(), null);
+            } catch (ProductPurchaseException e) {
+                status.setRollbackOnly();
+                return new Outcome<T>(null, e);
+            }
+        });
+        if (outcome.failure() instanceof ProductPurchaseException purchaseException) {
+            throw purchaseException;
+        }
+        return outcome.value();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drain, "product-purchase-group-commit");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        failQueued();
+    }
+
+    private void failQueued() {
+        var leftovers = new ArrayList<PendingPurchase<?>>();
+        queue.drainTo(leftovers);
+        leftovers.stream()
+                .filter(PendingPurchase::claim)
+                .forEach(pending -> pending.result().completeExceptionally(
+                        new IllegalStateException("Purchase group commit stopped before the purchase ran")));
+    }
+
+    private void drain() {
+        var batch = new ArrayList<PendingPurchase<?>>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                var deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Purchase batch failed", e);
+            } finally {
+                batch.forEach(pending -> pending.result().completeExceptionally(
+                        new IllegalStateException("Purchase batch was not committed")));
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingPurchase<?>> batch) {
+        batchSize.record(batch.size());
+        var outcomes = new LinkedHashMap<PendingPurchase<?>, Runnable>();
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                for (var pending : batch) {
+                    if (!pending.claim()) {
+                        // its caller gave up waiting
+                        continue;
+                    }
+                    waitTime.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+                    outcomes.put(pending, runInSavepoint(pending));
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        // only answered once the batch committed
+        outcomes.values().forEach(Runnable::run);
+    }
+
+    /**
+     * Returns how to answer the caller once the batch committed.
+     */
+    private <T> Runnable runInSavepoint(PendingPurchase<T> pending) {
+        Outcome<T> outcome;
+        try {
+            outcome = purchaseTransaction.execute(status -> {
+                try {
+                    return new Outcome<>(pending.work().run(), null);
+                } catch (ProductPurchaseException e) {
+                    status.setRollbackOnly();
+                    return new Outcome<T>(null, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            outcome = new Outcome<>(null, e);
+        }
+        var result = outcome;
+        return () -> {
+            if (result.failure() == null) {
+                pending.result().complete(result.value());
+            } else {
+                pending.result().completeExceptionally(result.failure());
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.adam.ecommerce.product;
+
+import com.adam.ecommerce.exception.ProductPurchaseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs optimistic purchases and retries them when another writer got to one of the products first.
+ * Every retry sleeps for a random time below an exponentially growing cap (full jitter), so
+ * purchases colliding on the same product spread out instead of colliding again.
+ */
+@Component
+public class ProductPurchaseRetrier {
+
+    private final ProductPurchaseEngine purchaseEngine;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public ProductPurchaseRetrier(
+            ProductPurchaseEngine purchaseEngine,
+            MeterRegistry meterRegistry,
+            @Value("${application.purchase.mode:set-based}") String mode,
+            @Value("${application.purchase.optimistic.max-attempts:5}") int maxAttempts,
+            @Value("${application.purchase.optimistic.initial-backoff:PT0.005S}") Duration initialBackoff,
+            @Value("${application.purchase.optimistic.max-backoff:PT0.1S}") Duration maxBackoff
+    ) {
+        this.purchaseEngine = purchaseEngine;
+        this.meterRegistry = meterRegistry;
+        this.enabled = "optimistic".equalsIgnoreCase(mode);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<ProductPurchaseResponse> purchase(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
+        return execute(request, () -> purchaseEngine.purchaseOptimistically(request));
+    }
+
+    /**
+     * Retries work taking the stock of the request optimistically. Every attempt must run in its own transaction.
+     */
+    public <T> T execute(
+            List<ProductPurchaseRequest> request,
+            ProductPurchaseGroupCommitter.PurchaseWork<T> work
+    ) throws ProductPurchaseException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.run();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                var productIds = conflictingProductIds(e, request);
+                productIds.forEach(productId -> count("product.purchase.conflicts", productId));
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                productIds.forEach(productId -> count("product.purchase.retries", productId));
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * A batched flush does not always tell which row was stale; the conflict is then charged to
+     * every product of the purchase.
+     */
+    private static List<String> conflictingProductIds(ObjectOptimisticLockingFailureException e, List<ProductPurchaseRequest> request) {
+        if (e.getIdentifier() != null) {
+            return List.of(String.valueOf(e.getIdentifier()));
+        }
+        return request
+                .stream()
+                .map(line -> String.valueOf(line.productId()))
+                .distinct()
+                .toList();
+    }
+
+    private void count(String name, String productId) {
+        meterRegistry.counter(name, "product", productId).increment();
+    }
+
+    private void backOff(int attempt, ObjectOptimisticLockingFailureException conflict) {
+        var cap = Math.min(maxBackoff.toNanos(), initialBackoff.toNanos() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(cap + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -1,9 +1,186 @@
 package com.adam.ecommerce.product;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, ProductPageQueries {
     List<Product> findAllByIdInOrderById(List<Integer> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Integer id);
+
+    @Query("""
+            select new com.adam.ecommerce.product.ProductResponse(
+                p.id,
+                p.name,
+                p.description,
+                coalesce((select sum(b.availableQuantity) from ProductStockBucket b where b.productId = p.id), p.available_quantity),
+                p.price,
+                c.id,
+                c.name,
+                c.description
+            )
+            from Product p
+            join p.category c
+            where p.id = :id
+            """)
+    Optional<ProductResponse> findResponseById(@Param("id") Integer id);
+
+    @Query("""
+            select new com.adam.ecommerce.product.ProductResponse(
+                p.id,
+                p.name,
+                p.description,
+                coalesce((select sum(b.availableQuantity) from ProductStockBucket b where b.productId = p.id), p.available_quantity),
+                p.price,
+                c.id,
+                c.name,
+                c.description
+            )
+            from Product p
+            join p.category c
+            order by p.id
+            """)
+    List<ProductResponse> findAllResponses();
+
+    /**
+     * Reads through a server-side cursor; the caller must consume the stream inside a transaction and close it.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.adam.ecommerce.product.ProductResponse(
+                p.id,
+                p.name,
+                p.description,
+                coalesce((select sum(b.availableQuantity) from ProductStockBucket b where b.productId = p.id), p.available_quantity),
+                p.price,
+                c.id,
+                c.name,
+                c.description
+            )
+            from Product p
+            join p.category c
+            order by p.id
+            """)
+    Stream<ProductResponse> streamAllResponses();
+
+    @Query("""
+            select new com.adam.ecommerce.product.ProductResponse(
+                p.id,
+                p.name,
+                p.description,
+                coalesce((select sum(b.availableQuantity) from ProductStockBucket b where b.productId = p.id), p.available_quantity),
+                p.price,
+                c.id,
+                c.name,
+                c.description
+            )
+            from Product p
+            join p.category c
+            where p.id in :ids
+            """)
+    List<ProductResponse> findAllResponsesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("select p.id as id, p.version as version from Product p where p.id in :ids")
+    List<ProductVersion> findVersionsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Decrements every requested line in one statement. A line is only applied when enough
+     * stock is left, so the returned rows are exactly the lines that succeeded. Sharded products
+     * keep their stock in {@code product_stock_bucket} and are never touched here.
+     */
+    @Query(value = """
+            update product p
+            set available_quantity = p.available_quantity - r.quantity,
+                version = p.version + 1
+            from unnest(cast(:ids as integer[]), cast(:quantities as double precision[])) as r(id, quantity)
+            where p.id = r.id
+              and p.stock_buckets = 0
+              and p.available_quantity >= r.quantity
+            returning p.id as id, p.category_id as categoryId, p.available_quantity as availableQuantity
+            """, nativeQuery = true)
+    List<StockLevel> decrementAvailableQuantities(
+            @Param("ids") Integer[] ids,
+            @Param("quantities") Double[] quantities
+    );
+
+    /**
+     * Bumps the version of sharded products whose buckets were written, as the plain decrement does for plain
+     * products. The row locks, taken in id order, make a bucket sum read afterwards include every bucket write
+     * committed before it, so the sums published follow the versions.
+     */
+    @Modifying
+    @Query(value = """
+            update product p
+            set version = p.version + 1
+            where p.id in (
+                select l.id
+                from product l
+                where l.id in (:ids)
+                  and l.stock_buckets > 0
+                order by l.id
+                for update
+            )
+            """, nativeQuery = true)
+    int incrementShardedVersions(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Ranks matches of the {@code search_vector} column, kept current by a trigger on product and category.
+     */
+    @Query(value = """
+            select p.id
+            from product p, to_tsquery('english', :query) q
+            where p.search_vector @@ q
+            order by ts_rank(p.search_vector, q) desc, p.id
+            limit :limit offset :offset
+            """, nativeQuery = true)
+    List<Integer> search(
+            @Param("query") String query,
+            @Param("limit") int limit,
+            @Param("offset") int offset
+    );
+
+    @Query(value = """
+            update product p
+            set available_quantity = p.available_quantity + r.quantity,
+                version = p.version + 1
+            from unnest(cast(:ids as integer[]), cast(:quantities as double precision[])) as r(id, quantity)
+            where p.id = r.id
+              and p.stock_buckets = 0
+            returning p.id as id, p.category_id as categoryId, p.available_quantity as availableQuantity
+            """, nativeQuery = true)
+    List<StockLevel> incrementAvailableQuantities(
+            @Param("ids") Integer[] ids,
+            @Param("quantities") Double[] quantities
+    );
+
+    /**
+     * Sets the low stock flag where it differs and returns the ids that flipped. The row lock makes
+     * concurrent writers agree, so each crossing is reported by exactly one transaction.
+     */
+    @Query(value = """
+            update product p
+            set low_stock = r.low_stock
+            from unnest(cast(:ids as integer[]), cast(:lowStock as boolean[])) as r(id, low_stock)
+            where p.id = r.id
+              and p.low_stock <> r.low_stock
+            returning p.id
+            """, nativeQuery = true)
+    List<Integer> updateLowStock(
+            @Param("ids") Integer[] ids,
+            @Param("lowStock") Boolean[] lowStock
+    );
 }
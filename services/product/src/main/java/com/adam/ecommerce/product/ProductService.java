@@ -2,65 +2,177 @@ package com.adam.ecommerce.product;
 
 
 import com.adam.ecommerce.exception.ProductPurchaseException;
+import com.adam.ecommerce.kafka.ProductEventType;
+import com.adam.ecommerce.outbox.ProductOutbox;
+import com.adam.ecommerce.stock.ProductStockBucketService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static com.adam.ecommerce.config.ProductCacheConfig.PRODUCTS;
+import static com.adam.ecommerce.config.ProductCacheConfig.PRODUCT_CATALOG;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    static final int MAX_PAGE_SIZE = 100;
+
     private final ProductRepository repository;
     private final ProductMapper mapper ;
+    private final ProductPurchaseEngine purchaseEngine;
+    private final ProductPurchaseGroupCommitter purchaseGroupCommitter;
+    private final ProductPurchaseRetrier purchaseRetrier;
+    private final ProductStockBucketService stockBucketService;
+    private final ProductImportService importService;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final ProductOutbox outbox;
 
+    @Transactional
+    @CacheEvict(cacheNames = PRODUCT_CATALOG, allEntries = true)
     public Integer createProduct(@Valid ProductRequest request) {
         var product = mapper.toProduct(request);
-        return repository.save(product).getId();
+        var productId = repository.save(product).getId();
+        outbox.record(ProductEventType.UPSERT, List.of(productId));
+        return productId;
     }
 
-    public List<ProductPurchaseResponse> purchaseProducts(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
-        var productIds = request
-                .stream()
-                .map(ProductPurchaseRequest::productId)
-                .toList();
+    public ProductImportResponse importProducts(InputStream body) throws IOException {
+        return importService.importJson(body);
+    }
+
+    public ProductImportResponse importProductsCsv(InputStream body) throws IOException {
+        return importService.importCsv(body);
+    }
 
-        var storedProducts = repository.findAllByIdInOrderById(productIds);
-        if(productIds.size() != storedProducts.size()){
-            throw new ProductPurchaseException("One or more products does not exists");
+    public List<ProductPurchaseResponse> purchaseProducts(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
+        if (purchaseGroupCommitter.isEnabled()) {
+            return purchaseGroupCommitter.purchase(request);
         }
-        var storedRequest = request
-                .stream().sorted(Comparator.comparing(ProductPurchaseRequest::productId))
-                .toList();
-        var purchasedProducts = new ArrayList<ProductPurchaseResponse>();
-        for(int i = 0 ; i < storedProducts.size() ; i++){
-            var product = storedProducts.get(i);
-            var productRequest = storedRequest.get(i);
-            if(product.getAvailable_quantity() < productRequest.quantity()){
-                throw new ProductPurchaseException("Not enough quantity of product with id:: " + product.getId());
-            }
-            var newAvailableQuantity = product.getAvailable_quantity() - productRequest.quantity();
-            product.setAvailable_quantity(newAvailableQuantity);
-            repository.save(product);
-            purchasedProducts.add(mapper.toProductPurchaseResponse(product, productRequest.quantity()));
+        if (purchaseRetrier.isEnabled()) {
+            return purchaseRetrier.purchase(request);
         }
-        return purchasedProducts;
+        return purchaseEngine.purchase(request);
     }
 
+    @Cacheable(cacheNames = PRODUCTS)
     public ProductResponse findById(Integer productId) {
-        return repository.findById(productId)
-                .map(mapper::toProductResponse)
+        return repository.findResponseById(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with the ID:: " + productId));
     }
 
+    /**
+     * Answers from the per-product cache where it can and loads every miss in a single query,
+     * warming the cache with what it loads. Unknown ids are left out of the result.
+     */
+    public List<ProductResponse> findAllById(Collection<Integer> productIds) {
+        var cache = cacheManager.getCache(PRODUCTS);
+        var products = new TreeMap<Integer, ProductResponse>();
+        var misses = new ArrayList<Integer>();
+        productIds.stream().filter(Objects::nonNull).distinct().forEach(productId -> {
+            var cached = cache == null ? null : cache.get(productId, ProductResponse.class);
+            if (cached != null) {
+                products.put(productId, cached);
+            } else {
+                misses.add(productId);
+            }
+        });
+        if (!misses.isEmpty()) {
+            for (var product : repository.findAllResponsesByIdIn(misses)) {
+                if (cache != null) {
+                    cache.put(product.id(), product);
+                }
+                products.put(product.id(), product);
+            }
+        }
+        return List.copyOf(products.values());
+    }
+
+    @Cacheable(cacheNames = PRODUCT_CATALOG)
     public List<ProductResponse> findAll() {
-        return repository.findAll()
+        return repository.findAllResponses();
+    }
+
+    /**
+     * Seeks past {@code after} on the primary key instead of using an offset, so every page costs
+     * the same whatever its depth.
+     */
+    @Cacheable(cacheNames = PRODUCT_CATALOG)
+    public ProductPage findPage(Integer after, int size, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice) {
+        var pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        var products = repository.findPage(
+                after == null ? 0 : after,
+                categoryId,
+                minPrice,
+                maxPrice,
+                Limit.of(pageSize)
+        );
+        var nextCursor = products.size() < pageSize ? null : products.get(products.size() - 1).id();
+        return new ProductPage(products, nextCursor);
+    }
+
+    /**
+     * Every word of the query must match, as a prefix, the product name, its category name or its description.
+     */
+    public List<ProductResponse> search(String query, int page, int size) {
+        var tsQuery = Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isBlank())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+        if (tsQuery.isEmpty()) {
+            return List.of();
+        }
+        var pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        var ids = repository.search(tsQuery, pageSize, Math.max(page, 0) * pageSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return repository.findAllResponsesByIdIn(ids)
                 .stream()
-                .map(mapper::toProductResponse)
+                .sorted(Comparator.comparingInt(product -> ids.indexOf(product.id())))
                 .toList();
     }
+
+    /**
+     * Writes the whole catalog as NDJSON, one product per line, without ever holding more than a fetch of it.
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream out) throws IOException {
+        var writer = objectMapper.writerFor(ProductResponse.class);
+        var buffered = new BufferedOutputStream(out, 64 * 1024);
+        try (var products = repository.streamAllResponses()) {
+            for (var iterator = products.iterator(); iterator.hasNext(); ) {
+                buffered.write(writer.writeValueAsBytes(iterator.next()));
+                buffered.write('\n');
+            }
+        }
+        buffered.flush();
+    }
+
+    public void shardStock(Integer productId, int buckets) {
+        stockBucketService.shard(productId, buckets);
+    }
 }
@@ -0,0 +1,8 @@
+package com.adam.ecommerce.product;
+
+import java.util.Collection;
+
+public record ProductStockChangedEvent(
+        Collection<Integer> productIds
+) {
+}
@@ -0,0 +1,8 @@
+package com.adam.ecommerce.product;
+
+public interface ProductVersion {
+
+    Integer getId();
+
+    Long getVersion();
+}
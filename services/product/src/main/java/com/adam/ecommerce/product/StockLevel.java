@@ -0,0 +1,17 @@
+package com.adam.ecommerce.product;
+
+public interface StockLevel {
+
+    Integer getId();
+
+    Integer getCategoryId();
+
+    Double getAvailableQuantity();
+
+    static StockLevel of(Product product) {
+        record Snapshot(Integer getId, Integer getCategoryId, Double getAvailableQuantity) implements StockLevel {
+        }
+        var categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+        return new Snapshot(product.getId(), categoryId, product.getAvailable_quantity());
+    }
+}
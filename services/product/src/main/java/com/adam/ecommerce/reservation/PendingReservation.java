@@ -0,0 +1,10 @@
+package com.adam.ecommerce.reservation;
+
+import java.time.LocalDateTime;
+
+public interface PendingReservation {
+
+    String getReservationId();
+
+    LocalDateTime getExpiresAt();
+}
@@ -0,0 +1,25 @@
+package com.adam.ecommerce.reservation;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@IdClass(ProductReservationId.class)
+public class ProductReservation {
+    @Id
+    private String reservationId;
+    @Id
+    private Integer productId;
+    private double quantity;
+    private LocalDateTime expiresAt;
+    private LocalDateTime confirmedAt;
+}
@@ -0,0 +1,41 @@
+package com.adam.ecommerce.reservation;
+
+import com.adam.ecommerce.exception.ProductPurchaseException;
+import com.adam.ecommerce.product.ProductPurchaseRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/products/reservations")
+@RequiredArgsConstructor
+public class ProductReservationController {
+
+    private final ProductReservationService service;
+
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(
+            @RequestBody @Valid List<ProductPurchaseRequest> request
+    ) throws ProductPurchaseException {
+        return ResponseEntity.ok(service.reserve(request));
+    }
+
+    @PostMapping("/{reservation-id}/confirm")
+    public ResponseEntity<Void> confirm(
+            @PathVariable("reservation-id") String reservationId
+    ) throws ProductPurchaseException {
+        service.confirm(reservationId);
+        return ResponseEntity.accepted().build();
+    }
+
+    @DeleteMapping("/{reservation-id}")
+    public ResponseEntity<Void> release(
+            @PathVariable("reservation-id") String reservationId
+    ) {
+        service.release(reservationId);
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.adam.ecommerce.reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductReservationId implements Serializable {
+    private String reservationId;
+    private Integer productId;
+}
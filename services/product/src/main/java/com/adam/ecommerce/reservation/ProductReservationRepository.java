@@ -0,0 +1,82 @@
+package com.adam.ecommerce.reservation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductReservationRepository extends JpaRepository<ProductReservation, ProductReservationId> {
+
+    @Modifying
+    @Query(value = """
+            insert into product_reservation (reservation_id, product_id, quantity, expires_at)
+            select :reservationId, r.product_id, r.quantity, :expiresAt
+            from unnest(cast(:productIds as integer[]), cast(:quantities as double precision[])) as r(product_id, quantity)
+            """, nativeQuery = true)
+    int insertReservation(
+            @Param("reservationId") String reservationId,
+            @Param("productIds") Integer[] productIds,
+            @Param("quantities") Double[] quantities,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    /**
+     * Confirms a hold that was not released yet, even past its expiry, as its stock is still taken. Confirming
+     * it again matches the same rows, so a retried confirmation succeeds.
+     */
+    @Modifying
+    @Query(value = """
+            update product_reservation r
+            set confirmed_at = coalesce(r.confirmed_at, :now)
+            where r.reservation_id = :reservationId
+            """, nativeQuery = true)
+    int confirmReservation(
+            @Param("reservationId") String reservationId,
+            @Param("now") LocalDateTime now
+    );
+
+    @Query(value = """
+            delete from product_reservation r
+            where r.reservation_id = :reservationId
+              and r.confirmed_at is null
+            returning r.product_id as productId, r.quantity as quantity
+            """, nativeQuery = true)
+    List<ReservedQuantity> deleteReservation(@Param("reservationId") String reservationId);
+
+    @Query(value = """
+            delete from product_reservation r
+            where r.reservation_id in (:reservationIds)
+              and r.expires_at <= :now
+              and r.confirmed_at is null
+            returning r.product_id as productId, r.quantity as quantity
+            """, nativeQuery = true)
+    List<ReservedQuantity> deleteExpiredReservations(
+            @Param("reservationIds") List<String> reservationIds,
+            @Param("now") LocalDateTime now
+    );
+
+    @Query(value = """
+            delete from product_reservation r
+            where r.expires_at <= :now
+              and r.confirmed_at is null
+            returning r.product_id as productId, r.quantity as quantity
+            """, nativeQuery = true)
+    List<ReservedQuantity> deleteAllExpiredReservations(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = """
+            delete from product_reservation r
+            where r.confirmed_at < :before
+            """, nativeQuery = true)
+    int deleteConfirmedBefore(@Param("before") LocalDateTime before);
+
+    @Query(value = """
+            select distinct r.reservation_id as reservationId, r.expires_at as expiresAt
+            from product_reservation r
+            where r.confirmed_at is null
+            """, nativeQuery = true)
+    List<PendingReservation> findAllPending();
+}
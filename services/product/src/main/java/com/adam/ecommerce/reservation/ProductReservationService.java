@@ -0,0 +1,117 @@
+package com.adam.ecommerce.reservation;
+
+import com.adam.ecommerce.exception.ProductPurchaseException;
+import com.adam.ecommerce.product.ProductPurchaseEngine;
+import com.adam.ecommerce.product.ProductPurchaseGroupCommitter;
+import com.adam.ecommerce.product.ProductPurchaseRetrier;
+import com.adam.ecommerce.product.ProductPurchaseRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ProductReservationService {
+
+    private final ProductReservationRepository repository;
+    private final ProductPurchaseEngine purchaseEngine;
+    private final ProductPurchaseGroupCommitter purchaseGroupCommitter;
+    private final ProductPurchaseRetrier purchaseRetrier;
+    private final ReservationIndex index;
+
+    @Value("${application.reservation.ttl:PT15M}")
+    private Duration ttl;
+
+    @Value("${application.reservation.confirmed-retention:P1D}")
+    private Duration confirmedRetention;
+
+    /**
+     * Takes the stock of every line and holds it until the reservation is confirmed, released or expires.
+     * Runs through the group committer, so concurrent reservations share a transaction when group commit is on.
+     * In optimistic mode, where group commit is off, every retry holds the stock in a transaction of its own.
+     */
+    public ReservationResponse reserve(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
+        var reservation = purchaseRetrier.isEnabled()
+                ? purchaseRetrier.execute(request, () -> purchaseGroupCommitter.execute(() -> hold(request)))
+                : purchaseGroupCommitter.execute(() -> hold(request));
+        // indexed once committed, the sweeper would otherwise look for a hold that was rolled back
+        index.add(reservation.reservationId(), reservation.expiresAt());
+        return reservation;
+    }
+
+    private ReservationResponse hold(List<ProductPurchaseRequest> request) throws ProductPurchaseException {
+        var products = purchaseRetrier.isEnabled()
+                ? purchaseEngine.purchaseOptimistically(request)
+                : purchaseEngine.purchase(request);
+
+        var quantities = request
+                .stream()
+                .collect(Collectors.toMap(
+                        ProductPurchaseRequest::productId,
+                        ProductPurchaseRequest::quantity,
+                        Double::sum
+                ));
+        var reservationId = UUID.randomUUID().toString();
+        var expiresAt = LocalDateTime.now().plus(ttl);
+        repository.insertReservation(
+                reservationId,
+                quantities.keySet().toArray(Integer[]::new),
+                quantities.values().toArray(Double[]::new),
+                expiresAt
+        );
+        return new ReservationResponse(reservationId, expiresAt, products);
+    }
+
+    /**
+     * Makes the hold permanent: the stock stays taken and the sweeper no longer releases it. Confirming a
+     * reservation twice succeeds; one that was released or already swept cannot be confirmed.
+     */
+    @Transactional(rollbackFor = ProductPurchaseException.class)
+    public void confirm(String reservationId) throws ProductPurchaseException {
+        index.remove(reservationId);
+        if (repository.confirmReservation(reservationId, LocalDateTime.now()) == 0) {
+            throw new ProductPurchaseException("Reservation not found or expired:: " + reservationId);
+        }
+    }
+
+    @Transactional
+    public void release(String reservationId) {
+        index.remove(reservationId);
+        restock(repository.deleteReservation(reservationId));
+    }
+
+    @Transactional
+    public void releaseExpired(List<String> reservationIds) {
+        restock(repository.deleteExpiredReservations(reservationIds, LocalDateTime.now()));
+    }
+
+    @Transactional
+    public void releaseAllExpired() {
+        restock(repository.deleteAllExpiredReservations(LocalDateTime.now()));
+    }
+
+    /**
+     * Forgets confirmed reservations once the order service stopped retrying their confirmation.
+     */
+    @Transactional
+    public void forgetConfirmed() {
+        repository.deleteConfirmedBefore(LocalDateTime.now().minus(confirmedRetention));
+    }
+
+    private void restock(List<ReservedQuantity> released) {
+        purchaseEngine.restock(released
+                .stream()
+                .collect(Collectors.toMap(
+                        ReservedQuantity::getProductId,
+                        ReservedQuantity::getQuantity,
+                        Double::sum
+                )));
+    }
+}
@@ -0,0 +1,47 @@
+package com.adam.ecommerce.reservation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductReservationSweeper {
+
+    private final ProductReservationService service;
+    private final ProductReservationRepository repository;
+    private final ReservationIndex index;
+
+    @Value("${application.reservation.sweep-batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingReservations() {
+        repository.findAllPending()
+                .forEach(reservation -> index.add(reservation.getReservationId(), reservation.getExpiresAt()));
+        log.info("Loaded {} pending reservations", index.size());
+    }
+
+    @Scheduled(fixedDelayString = "${application.reservation.sweep-delay:PT1S}")
+    public void releaseDueReservations() {
+        var expired = index.pollExpired(LocalDateTime.now(), batchSize);
+        while (!expired.isEmpty()) {
+            service.releaseExpired(expired);
+            expired = index.pollExpired(LocalDateTime.now(), batchSize);
+        }
+    }
+
+    // catches holds this instance does not know about, e.g. taken by an instance that went away
+    @Scheduled(fixedDelayString = "${application.reservation.full-sweep-delay:PT1M}")
+    public void releaseAllExpiredReservations() {
+        service.releaseAllExpired();
+        service.forgetConfirmed();
+    }
+}
@@ -0,0 +1,59 @@
+package com.adam.ecommerce.reservation;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory view of the pending reservations of this instance, ordered by expiry, so the sweeper
+ * only goes to the database when something is actually due.
+ */
+@Component
+public class ReservationIndex {
+
+    private record Hold(LocalDateTime expiresAt, String reservationId) {
+    }
+
+    private final NavigableSet<Hold> holds = new ConcurrentSkipListSet<>(
+            Comparator.comparing(Hold::expiresAt).thenComparing(Hold::reservationId)
+    );
+    private final Map<String, LocalDateTime> expiries = new ConcurrentHashMap<>();
+
+    public void add(String reservationId, LocalDateTime expiresAt) {
+        if (expiries.putIfAbsent(reservationId, expiresAt) == null) {
+            holds.add(new Hold(expiresAt, reservationId));
+        }
+    }
+
+    public void remove(String reservationId) {
+        var expiresAt = expiries.remove(reservationId);
+        if (expiresAt != null) {
+            holds.remove(new Hold(expiresAt, reservationId));
+        }
+    }
+
+    public List<String> pollExpired(LocalDateTime now, int limit) {
+        var expired = new ArrayList<String>();
+        for (var hold : holds) {
+            if (expired.size() >= limit || hold.expiresAt().isAfter(now)) {
+                break;
+            }
+            if (holds.remove(hold)) {
+                expiries.remove(hold.reservationId());
+                expired.add(hold.reservationId());
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return expiries.size();
+    }
+}
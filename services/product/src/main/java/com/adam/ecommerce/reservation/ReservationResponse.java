@@ -0,0 +1,13 @@
+package com.adam.ecommerce.reservation;
+
+import com.adam.ecommerce.product.ProductPurchaseResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ReservationResponse(
+        String reservationId,
+        LocalDateTime expiresAt,
+        List<ProductPurchaseResponse> products
+) {
+}
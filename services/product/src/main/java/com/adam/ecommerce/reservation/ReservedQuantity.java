@@ -0,0 +1,8 @@
+package com.adam.ecommerce.reservation;
+
+public interface ReservedQuantity {
+
+    Integer getProductId();
+
+    Double getQuantity();
+}
@@ -0,0 +1,66 @@
+package com.adam.ecommerce.stock;
+
+import com.adam.ecommerce.kafka.LowStockEvent;
+import com.adam.ecommerce.kafka.LowStockState;
+import com.adam.ecommerce.outbox.ProductOutbox;
+import com.adam.ecommerce.product.ProductRepository;
+import com.adam.ecommerce.product.StockLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Checks the stock levels the purchase and restock statements already return against the
+ * thresholds, so detection never reads the product table on its own. Whether a product is low is
+ * kept in {@code product.low_stock}, shared by every instance and rolled back with the purchase;
+ * a crossing in either direction records one event.
+ */
+@Component
+@RequiredArgsConstructor
+public class LowStockDetector {
+
+    private final LowStockThresholds thresholds;
+    private final ProductOutbox outbox;
+    private final ProductRepository productRepository;
+
+    public void check(Collection<StockLevel> stockLevels) {
+        // sorted by id, so concurrent flips lock the product rows in the same order
+        var lowStock = new TreeMap<Integer, Boolean>();
+        var levels = new HashMap<Integer, StockLevel>();
+        for (var stockLevel : stockLevels) {
+            var productId = stockLevel.getId();
+            var threshold = thresholds.thresholdFor(productId, stockLevel.getCategoryId());
+            if (threshold <= 0) {
+                continue;
+            }
+            var quantity = stockLevel.getAvailableQuantity();
+            if (quantity <= threshold) {
+                lowStock.put(productId, true);
+            } else if (quantity > threshold + thresholds.getRecoveryMargin()) {
+                lowStock.put(productId, false);
+            } else {
+                continue;
+            }
+            levels.put(productId, stockLevel);
+        }
+        if (lowStock.isEmpty()) {
+            return;
+        }
+
+        var now = LocalDateTime.now();
+        var flipped = productRepository.updateLowStock(
+                lowStock.keySet().toArray(Integer[]::new),
+                lowStock.values().toArray(Boolean[]::new)
+        );
+        for (var productId : flipped) {
+            var stockLevel = levels.get(productId);
+            var state = lowStock.get(productId) ? LowStockState.LOW : LowStockState.RECOVERED;
+            var threshold = thresholds.thresholdFor(productId, stockLevel.getCategoryId());
+            outbox.record(new LowStockEvent(state, productId, stockLevel.getCategoryId(), stockLevel.getAvailableQuantity(), threshold, now));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.adam.ecommerce.stock;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Low-stock thresholds by product id, then by category id, then the default. A threshold of 0
+ * turns detection off. A low product only recovers once it is back above threshold + recovery margin.
+ */
+@Component
+@ConfigurationProperties(prefix = "application.low-stock")
+@Getter
+@Setter
+public class LowStockThresholds {
+
+    private double defaultThreshold;
+    private double recoveryMargin;
+    private Map<Integer, Double> products = new HashMap<>();
+    private Map<Integer, Double> categories = new HashMap<>();
+
+    public double thresholdFor(Integer productId, Integer categoryId) {
+        var threshold = products.get(productId);
+        if (threshold == null && categoryId != null) {
+            threshold = categories.get(categoryId);
+        }
+        return threshold == null ? defaultThreshold : threshold;
+    }
+}
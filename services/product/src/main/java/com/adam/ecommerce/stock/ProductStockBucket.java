@@ -0,0 +1,21 @@
+package com.adam.ecommerce.stock;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+@Entity
+@IdClass(ProductStockBucketId.class)
+public class ProductStockBucket {
+    @Id
+    private Integer productId;
+    @Id
+    private Integer bucket;
+    private double availableQuantity;
+}
@@ -0,0 +1,15 @@
+package com.adam.ecommerce.stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductStockBucketId implements Serializable {
+    private Integer productId;
+    private Integer bucket;
+}
@@ -0,0 +1,111 @@
+package com.adam.ecommerce.stock;
+
+import com.adam.ecommerce.product.StockLevel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductStockBucketRepository extends JpaRepository<ProductStockBucket, ProductStockBucketId> {
+
+    /**
+     * Takes the quantity from the first bucket, starting at {@code offset}, that can cover it and
+     * is not locked by another purchase. Returns 0 when no such bucket exists right now.
+     */
+    @Modifying
+    @Query(value = """
+            update product_stock_bucket b
+            set available_quantity = b.available_quantity - :quantity
+            where (b.product_id, b.bucket) in (
+                select s.product_id, s.bucket
+                from product_stock_bucket s
+                where s.product_id = :productId
+                  and s.available_quantity >= :quantity
+                order by mod(s.bucket + :offset, :buckets)
+                limit 1
+                for update skip locked
+            )
+            """, nativeQuery = true)
+    int decrementAnyBucket(
+            @Param("productId") Integer productId,
+            @Param("quantity") double quantity,
+            @Param("offset") int offset,
+            @Param("buckets") int buckets
+    );
+
+    @Query(value = """
+            select coalesce(max(b.available_quantity), 0)
+            from product_stock_bucket b
+            where b.product_id = :productId
+            """, nativeQuery = true)
+    double findLargestAvailableQuantity(@Param("productId") Integer productId);
+
+    @Query(value = """
+            select coalesce(sum(b.available_quantity), 0)
+            from product_stock_bucket b
+            where b.product_id = :productId
+            """, nativeQuery = true)
+    double sumAvailableQuantity(@Param("productId") Integer productId);
+
+    @Query(value = """
+            select b.available_quantity
+            from product_stock_bucket b
+            where b.product_id = :productId
+            order by b.bucket
+            for update
+            """, nativeQuery = true)
+    List<Double> lockAvailableQuantities(@Param("productId") Integer productId);
+
+    @Modifying
+    @Query(value = """
+            update product_stock_bucket b
+            set available_quantity = r.quantity
+            from unnest(cast(:quantities as double precision[])) with ordinality as r(quantity, position)
+            where b.product_id = :productId
+              and b.bucket = r.position - 1
+            """, nativeQuery = true)
+    int updateAvailableQuantities(
+            @Param("productId") Integer productId,
+            @Param("quantities") Double[] quantities
+    );
+
+    @Modifying
+    @Query(value = """
+            insert into product_stock_bucket (product_id, bucket, available_quantity)
+            select :productId, r.position - 1, r.quantity
+            from unnest(cast(:quantities as double precision[])) with ordinality as r(quantity, position)
+            """, nativeQuery = true)
+    int insertBuckets(
+            @Param("productId") Integer productId,
+            @Param("quantities") Double[] quantities
+    );
+
+    @Modifying
+    @Query(value = "delete from product_stock_bucket b where b.product_id = :productId", nativeQuery = true)
+    int deleteAllByProductId(@Param("productId") Integer productId);
+
+    @Modifying
+    @Query(value = """
+            update product_stock_bucket b
+            set available_quantity = b.available_quantity + r.quantity
+            from unnest(cast(:productIds as integer[]), cast(:quantities as double precision[])) as r(product_id, quantity)
+            where b.product_id = r.product_id
+              and b.bucket = 0
+            """, nativeQuery = true)
+    int incrementFirstBuckets(
+            @Param("productIds") Integer[] productIds,
+            @Param("quantities") Double[] quantities
+    );
+
+    @Query(value = """
+            select p.id as id, p.category_id as categoryId, sum(b.available_quantity) as availableQuantity
+            from product_stock_bucket b
+            join product p on p.id = b.product_id
+            where b.product_id in (:productIds)
+            group by p.id, p.category_id
+            """, nativeQuery = true)
+    List<StockLevel> sumAvailableQuantities(@Param("productIds") Collection<Integer> productIds);
+}
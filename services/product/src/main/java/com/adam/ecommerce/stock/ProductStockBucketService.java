@@ -0,0 +1,90 @@
+package com.adam.ecommerce.stock;
+
+import com.adam.ecommerce.product.ProductRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+public class ProductStockBucketService {
+
+    private final ProductStockBucketRepository repository;
+    private final ProductRepository productRepository;
+    private final int skipLockedAttempts;
+
+    public ProductStockBucketService(
+            ProductStockBucketRepository repository,
+            ProductRepository productRepository,
+            @Value("${application.stock-buckets.skip-locked-attempts:3}") int skipLockedAttempts
+    ) {
+        this.repository = repository;
+        this.productRepository = productRepository;
+        this.skipLockedAttempts = Math.max(skipLockedAttempts, 1);
+    }
+
+    /**
+     * Moves the whole stock of a product into {@code buckets} rows, or back onto the product row
+     * when {@code buckets} is 0.
+     */
+    @Transactional
+    public void shard(Integer productId, int buckets) {
+        var product = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found with the ID:: " + productId));
+        var total = product.getAvailable_quantity() + sum(repository.lockAvailableQuantities(productId));
+
+        repository.deleteAllByProductId(productId);
+        if (buckets == 0) {
+            product.setAvailable_quantity(total);
+        } else {
+            product.setAvailable_quantity(0);
+            repository.insertBuckets(productId, spread(total, buckets));
+        }
+        product.setStockBuckets(buckets);
+    }
+
+    @Transactional
+    public boolean decrement(Integer productId, double quantity, int buckets) {
+        for (int attempt = 0; attempt < skipLockedAttempts; attempt++) {
+            var offset = ThreadLocalRandom.current().nextInt(buckets);
+            if (repository.decrementAnyBucket(productId, quantity, offset, buckets) == 1) {
+                return true;
+            }
+            // read without locking: only retry while some bucket could cover the line but is busy
+            if (repository.findLargestAvailableQuantity(productId) < quantity) {
+                break;
+            }
+        }
+        if (repository.sumAvailableQuantity(productId) < quantity) {
+            return false;
+        }
+        // no single bucket can cover the line, or they stayed busy: pool the buckets and spread what is left
+        var quantities = repository.lockAvailableQuantities(productId);
+        var total = sum(quantities);
+        if (total < quantity) {
+            return false;
+        }
+        repository.updateAvailableQuantities(productId, spread(total - quantity, quantities.size()));
+        return true;
+    }
+
+    static Double[] spread(double total, int buckets) {
+        var quantities = new Double[buckets];
+        var share = Math.floor(total / buckets);
+        for (int i = 0; i < buckets; i++) {
+            quantities[i] = share;
+        }
+        quantities[buckets - 1] = total - share * (buckets - 1);
+        return quantities;
+    }
+
+    private static double sum(List<Double> quantities) {
+        return quantities
+                .stream()
+                .mapToDouble(Double::doubleValue)
+                .sum();
+    }
+}
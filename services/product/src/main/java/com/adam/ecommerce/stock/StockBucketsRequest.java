@@ -0,0 +1,11 @@
+package com.adam.ecommerce.stock;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.PositiveOrZero;
+
+public record StockBucketsRequest(
+        @PositiveOrZero(message="Stock buckets must be positive or zero")
+        @Max(value = 256, message="Stock buckets must not exceed 256")
+        int buckets
+) {
+}
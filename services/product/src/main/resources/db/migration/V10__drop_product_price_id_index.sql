@@ -0,0 +1,3 @@
+-- keyset pages are ordered by id, which a (price, id) index cannot serve under a price range: price filters are
+-- applied while walking the primary key instead
+drop index if exists product_price_id_idx;
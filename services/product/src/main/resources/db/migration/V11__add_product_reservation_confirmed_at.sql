@@ -0,0 +1,8 @@
+-- confirmed holds are kept for a while instead of deleted, so a confirmation retried by the order service
+-- succeeds again; the sweeper never releases them
+alter table if exists product_reservation
+    add column if not exists confirmed_at timestamp;
+
+create index if not exists product_reservation_confirmed_at_idx
+    on product_reservation (confirmed_at)
+    where confirmed_at is not null;
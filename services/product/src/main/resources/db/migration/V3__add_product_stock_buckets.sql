@@ -0,0 +1,12 @@
+alter table product
+    add column if not exists stock_buckets integer not null default 0;
+
+create table if not exists product_stock_bucket
+(
+    product_id         integer          not null
+    constraint fk_product_stock_bucket_product
+    references product,
+    bucket             integer          not null,
+    available_quantity double precision not null,
+    primary key (product_id, bucket)
+    );
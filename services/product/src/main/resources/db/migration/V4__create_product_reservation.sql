@@ -0,0 +1,12 @@
+create table if not exists product_reservation
+(
+    reservation_id varchar(36)      not null,
+    product_id     integer          not null
+    constraint fk_product_reservation_product
+    references product,
+    quantity       double precision not null,
+    expires_at     timestamp        not null,
+    primary key (reservation_id, product_id)
+    );
+
+create index if not exists product_reservation_expires_at_idx on product_reservation (expires_at);
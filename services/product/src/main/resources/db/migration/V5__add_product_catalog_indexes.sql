@@ -0,0 +1,2 @@
+create index if not exists product_category_id_id_idx on product (category_id, id);
+create index if not exists product_price_id_idx on product (price, id);
@@ -0,0 +1,41 @@
+alter table product
+    add column if not exists search_vector tsvector;
+
+create or replace function product_search_vector_update() returns trigger as
+$$
+begin
+    new.search_vector :=
+            setweight(to_tsvector('english', coalesce(new.name, '')), 'A') ||
+            setweight(to_tsvector('english', coalesce((select c.name from category c where c.id = new.category_id), '')), 'B') ||
+            setweight(to_tsvector('english', coalesce(new.description, '')), 'C');
+    return new;
+end
+$$ language plpgsql;
+
+-- stock updates do not touch these columns, so the purchase path never pays for the trigger
+drop trigger if exists product_search_vector_trigger on product;
+create trigger product_search_vector_trigger
+    before insert or update of name, description, category_id
+    on product
+    for each row
+execute function product_search_vector_update();
+
+create or replace function category_search_vector_update() returns trigger as
+$$
+begin
+    update product set name = name where category_id = new.id;
+    return null;
+end
+$$ language plpgsql;
+
+drop trigger if exists category_search_vector_trigger on category;
+create trigger category_search_vector_trigger
+    after update of name
+    on category
+    for each row
+    when (old.name is distinct from new.name)
+execute function category_search_vector_update();
+
+update product set name = name;
+
+create index if not exists product_search_vector_idx on product using gin (search_vector);
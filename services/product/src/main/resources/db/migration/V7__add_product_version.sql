@@ -0,0 +1,2 @@
+alter table if exists product
+    add column if not exists version bigint not null default 0;
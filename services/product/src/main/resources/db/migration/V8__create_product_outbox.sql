@@ -0,0 +1,11 @@
+create table if not exists product_outbox
+(
+    id         bigint       not null
+    primary key,
+    topic      varchar(255) not null,
+    product_id integer      not null,
+    payload    text         not null,
+    created_at timestamp    not null
+    );
+
+create sequence if not exists product_outbox_seq increment by 50;
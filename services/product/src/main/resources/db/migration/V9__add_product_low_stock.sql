@@ -0,0 +1,2 @@
+alter table if exists product
+    add column if not exists low_stock boolean not null default false;
@@ -8,14 +8,20 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -62,6 +68,25 @@ public class ProductControllerTest {
                 .andExpect(status().isNotFound()); // GlobalExceptionHandler returns NOT_FOUND for validation errors
     }
 
+    @Test
+    public void testImportProducts() throws Exception {
+        // Given
+        when(productService.importProducts(any())).thenReturn(new ProductImportResponse(
+                1,
+                1,
+                List.of(new ProductImportError(2, "Product name is required"))
+        ));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"P1\",\"description\":\"D1\",\"available_quantity\":10,\"price\":9.99,\"categoryId\":1}\n{\"description\":\"D2\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2));
+    }
+
     @Test
     public void testFindProductById() throws Exception {
         // Given
@@ -98,6 +123,41 @@ public class ProductControllerTest {
                 .andExpect(content().string("Product not found with the ID:: " + productId));
     }
 
+    @Test
+    public void testFindProductsByIds() throws Exception {
+        // Given
+        List<ProductResponse> products = Arrays.asList(
+                new ProductResponse(1, "Product 1", "Description 1", 10.0, BigDecimal.valueOf(99.99), 1, "Category 1", "Category Description 1"),
+                new ProductResponse(3, "Product 3", "Description 3", 30.0, BigDecimal.valueOf(29.99), 2, "Category 2", "Category Description 2")
+        );
+        when(productService.findAllById(any())).thenReturn(products);
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,3,404]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(3));
+    }
+
+    @Test
+    public void testFindAllProductsByIdOverLimit() throws Exception {
+        // Given
+        String ids = IntStream.rangeClosed(1, 101)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ids))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).findAllById(any());
+    }
+
     @Test
     public void testFindAllProducts() throws Exception {
         // Given
@@ -128,6 +188,58 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    public void testFindProductPage() throws Exception {
+        // Given
+        ProductPage page = new ProductPage(
+                List.of(new ProductResponse(51, "Product 51", "Description 51", 10.0, new BigDecimal("99.99"), 1, "Category 1", "Category 1 Description")),
+                51
+        );
+        when(productService.findPage(50, 1, 1, null, null)).thenReturn(page);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/products/page")
+                        .param("after", "50")
+                        .param("size", "1")
+                        .param("categoryId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].id").value(51))
+                .andExpect(jsonPath("$.nextCursor").value(51));
+    }
+
+    @Test
+    public void testSearchProducts() throws Exception {
+        // Given
+        when(productService.search("mech key", 0, 20)).thenReturn(List.of(
+                new ProductResponse(1, "Mechanical Keyboard 1", "Mechanical keyboard with RGB lighting", 10.0, new BigDecimal("99.99"), 1, "Keyboards", "Computer Keyboards")
+        ));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/products/search").param("q", "mech key"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Mechanical Keyboard 1"));
+    }
+
+    @Test
+    public void testExportProducts() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(productService).exportProducts(any());
+
+        // When & Then
+        MvcResult result = mockMvc.perform(get("/api/v1/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
     @Test
     public void testPurchaseProducts_Success() throws Exception, ProductPurchaseException {
         // Given
@@ -179,6 +291,19 @@ public class ProductControllerTest {
                 .andExpect(content().string("Not enough quantity of product with id:: 1"));
     }
 
+    @Test
+    public void testPurchaseProducts_Conflict() throws Exception, ProductPurchaseException {
+        // Given
+        when(productService.purchaseProducts(anyList()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/purchase")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\":1,\"quantity\":1}]"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     public void testPurchaseProducts_InvalidRequest() throws Exception {
         // When & Then - Missing required fields
@@ -187,4 +312,15 @@ public class ProductControllerTest {
                         .content("[{\"quantity\":5}]")) // Missing productId
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    public void testShardStock() throws Exception {
+        // When & Then
+        mockMvc.perform(put("/api/v1/products/1/stock-buckets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"buckets\":8}"))
+                .andExpect(status().isAccepted());
+
+        verify(productService).shardStock(1, 8);
+    }
 }
@@ -0,0 +1,65 @@
+package com.adam.ecommerce.product;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Loads a million generated products and prints the latency of a few searches over them.
+ * Run with {@code ./mvnw test -Dtest=ProductSearchBenchmark -Dbenchmark=true} against a local database.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductSearchBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ITERATIONS = 200;
+    private static final List<String> QUERIES = List.of("keyboard", "wire", "gaming mouse", "ergonomic compact", "monit");
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void generateProducts() {
+        jdbcTemplate.update("""
+                insert into product (id, available_quantity, description, name, price, category_id)
+                select nextval('product_seq'),
+                       100,
+                       'benchmark ' || (array['wireless', 'mechanical', 'gaming', 'ergonomic', 'compact', 'curved', 'portable', 'silent'])[1 + i % 8]
+                           || ' ' || (array['black', 'white', 'rgb', 'usb', 'bluetooth', 'backlit', 'slim', 'pro'])[1 + (i / 8) % 8],
+                       (array['Keyboard', 'Mouse', 'Monitor', 'Screen', 'Headset', 'Webcam', 'Dock', 'Speaker'])[1 + (i / 64) % 8] || ' ' || i,
+                       10 + i % 500,
+                       (select min(c.id) from category c)
+                from generate_series(1, ?) as i
+                """, ROWS);
+        jdbcTemplate.execute("analyze product");
+    }
+
+    @AfterAll
+    void deleteProducts() {
+        jdbcTemplate.update("delete from product where description like 'benchmark %'");
+    }
+
+    @Test
+    void searchLatency() {
+        for (var query : QUERIES) {
+            productService.search(query, 0, 20);
+            var start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                productService.search(query, i % 5, 20);
+            }
+            var averageMicros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+            System.out.printf("'%s' over %d products: %.0f us per page%n", query, ROWS, averageMicros);
+        }
+    }
+}
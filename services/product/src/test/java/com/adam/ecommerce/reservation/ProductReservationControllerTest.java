@@ -0,0 +1,175 @@
+package com.adam.ecommerce.reservation;
+
+import com.adam.ecommerce.exception.ProductPurchaseException;
+import com.adam.ecommerce.handler.GlobalExceptionHandler;
+import com.adam.ecommerce.product.ProductPurchaseEngine;
+import com.adam.ecommerce.product.ProductPurchaseGroupCommitter;
+import com.adam.ecommerce.product.ProductPurchaseResponse;
+import com.adam.ecommerce.product.ProductPurchaseRetrier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class ProductReservationControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ProductReservationRepository repository;
+
+    @Mock
+    private ProductPurchaseEngine purchaseEngine;
+
+    @Mock
+    private ProductPurchaseGroupCommitter purchaseGroupCommitter;
+
+    @Mock
+    private ProductPurchaseRetrier purchaseRetrier;
+
+    @Mock
+    private ReservationIndex index;
+
+    @BeforeEach
+    public void setup() throws ProductPurchaseException {
+        MockitoAnnotations.openMocks(this);
+        // runs the work on the caller thread, as the committer does when group commit is disabled
+        when(purchaseGroupCommitter.execute(any()))
+                .thenAnswer(invocation -> invocation.<ProductPurchaseGroupCommitter.PurchaseWork<?>>getArgument(0).run());
+        ProductReservationService service = new ProductReservationService(
+                repository, purchaseEngine, purchaseGroupCommitter, purchaseRetrier, index);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofMinutes(15));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductReservationController(service))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    public void testReserve() throws Exception, ProductPurchaseException {
+        // Given
+        when(purchaseEngine.purchase(anyList())).thenReturn(List.of(
+                new ProductPurchaseResponse(1, "Product 1", "Description 1", new BigDecimal("99.99"), 5)
+        ));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\":1,\"quantity\":2},{\"productId\":1,\"quantity\":3}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reservationId").isNotEmpty())
+                .andExpect(jsonPath("$.products[0].id").value(1));
+
+        // the same product on two lines is held once with the summed quantity
+        verify(repository).insertReservation(anyString(), eq(new Integer[]{1}), eq(new Double[]{5.0}), any());
+        verify(index).add(anyString(), any());
+    }
+
+    @Test
+    public void testReserve_Optimistic() throws Exception, ProductPurchaseException {
+        // Given
+        when(purchaseRetrier.isEnabled()).thenReturn(true);
+        when(purchaseRetrier.execute(anyList(), any()))
+                .thenAnswer(invocation -> invocation.<ProductPurchaseGroupCommitter.PurchaseWork<?>>getArgument(1).run());
+        when(purchaseEngine.purchaseOptimistically(anyList())).thenReturn(List.of(
+                new ProductPurchaseResponse(1, "Product 1", "Description 1", new BigDecimal("99.99"), 2)
+        ));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\":1,\"quantity\":2}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reservationId").isNotEmpty());
+
+        verify(purchaseEngine, never()).purchase(anyList());
+        verify(repository).insertReservation(anyString(), eq(new Integer[]{1}), eq(new Double[]{2.0}), any());
+    }
+
+    @Test
+    public void testReserve_InsufficientQuantity() throws Exception, ProductPurchaseException {
+        // Given
+        when(purchaseEngine.purchase(anyList()))
+                .thenThrow(new ProductPurchaseException("Not enough quantity of products with ids:: [1]"));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\":1,\"quantity\":500}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Not enough quantity of products with ids:: [1]"));
+
+        verify(repository, never()).insertReservation(anyString(), any(), any(), any());
+        verify(index, never()).add(anyString(), any());
+    }
+
+    @Test
+    public void testConfirm() throws Exception {
+        // Given
+        when(repository.confirmReservation(eq("reservation-1"), any())).thenReturn(1);
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/reservations/reservation-1/confirm"))
+                .andExpect(status().isAccepted());
+
+        verify(index).remove("reservation-1");
+        verify(purchaseEngine, never()).restock(any());
+    }
+
+    @Test
+    public void testConfirm_Expired() throws Exception {
+        // Given
+        when(repository.confirmReservation(eq("reservation-1"), any())).thenReturn(0);
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/products/reservations/reservation-1/confirm"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Reservation not found or expired:: reservation-1"));
+    }
+
+    @Test
+    public void testRelease_Restocks() throws Exception {
+        // Given
+        when(repository.deleteReservation("reservation-1")).thenReturn(List.of(
+                reserved(1, 2.0),
+                reserved(3, 1.5)
+        ));
+
+        // When & Then
+        mockMvc.perform(delete("/api/v1/products/reservations/reservation-1"))
+                .andExpect(status().isAccepted());
+
+        verify(index).remove("reservation-1");
+        verify(purchaseEngine).restock(Map.of(1, 2.0, 3, 1.5));
+    }
+
+    private static ReservedQuantity reserved(Integer productId, Double quantity) {
+        return new ReservedQuantity() {
+            @Override
+            public Integer getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Double getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
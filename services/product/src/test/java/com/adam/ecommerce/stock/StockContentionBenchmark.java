@@ -0,0 +1,70 @@
+package com.adam.ecommerce.stock;
+
+import com.adam.ecommerce.exception.ProductPurchaseException;
+import com.adam.ecommerce.product.ProductPurchaseRequest;
+import com.adam.ecommerce.product.ProductRepository;
+import com.adam.ecommerce.product.ProductService;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hammers a single product from many threads and prints the purchase throughput for a given
+ * number of stock buckets (0 = stock kept on the product row).
+ * Run with {@code ./mvnw test -Dtest=StockContentionBenchmark -Dbenchmark=true} against a local database.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StockContentionBenchmark {
+
+    private static final int THREADS = 32;
+    private static final Duration RUN_TIME = Duration.ofSeconds(10);
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @ParameterizedTest(name = "{0} bucket(s)")
+    @ValueSource(ints = {0, 1, 4, 16})
+    void purchaseThroughputOnHotProduct(int buckets) throws InterruptedException {
+        var productId = productRepository.findAll(PageRequest.of(0, 1)).getContent().get(0).getId();
+        productService.shardStock(productId, 0);
+        var product = productRepository.findById(productId).orElseThrow();
+        product.setAvailable_quantity(10_000_000);
+        productRepository.save(product);
+        productService.shardStock(productId, buckets);
+
+        var purchases = new LongAdder();
+        var failures = new LongAdder();
+        var deadline = System.nanoTime() + RUN_TIME.toNanos();
+        var executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        productService.purchaseProducts(List.of(new ProductPurchaseRequest(productId, 1)));
+                        purchases.increment();
+                    } catch (ProductPurchaseException e) {
+                        failures.increment();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(RUN_TIME.toSeconds() + 30, TimeUnit.SECONDS);
+
+        System.out.printf("%d bucket(s): %.0f purchases/s (%d failed)%n",
+                buckets, purchases.sum() / (double) RUN_TIME.toSeconds(), failures.sum());
+        productService.shardStock(productId, 0);
+    }
+}